@@ -0,0 +1,49 @@
+#!/bin/sh
+# Builds the headless core and the Swing client with the JDK only.
+#
+#   build/chess-core.jar  models and engine, compiled against java.base
+#                         alone, so no AWT class can slip into the core
+#   build/chess-ui.jar    Swing panel, runs with the core on the class path
+#
+# The checks of test/ then run against the core, see PerftTest, and a
+# failed check fails the build.
+#
+# Figure images and perft suites are read from src/main/resources, so run
+# the jars from the repository root:
+#
+#        ./build.sh
+#        java -jar build/chess-ui.jar
+#        java -cp build/chess-core.jar main.engine.Engine bench
+#        java -cp build/chess-core.jar main.engine.Uci
+set -e
+
+cd "$(dirname "$0")"
+
+BUILD=build
+CORE_CLASSES=$BUILD/core
+UI_CLASSES=$BUILD/ui
+TEST_CLASSES=$BUILD/test
+
+rm -rf "$BUILD"
+mkdir -p "$CORE_CLASSES" "$UI_CLASSES" "$TEST_CLASSES"
+
+javac --release 17 --limit-modules java.base \
+      -d "$CORE_CLASSES" \
+      $(find src/main/models src/main/engine -name '*.java')
+jar --create --file "$BUILD/chess-core.jar" -C "$CORE_CLASSES" .
+
+javac --release 17 \
+      -cp "$BUILD/chess-core.jar" \
+      -d "$UI_CLASSES" \
+      src/main/Main.java $(find src/main/components -name '*.java')
+printf 'Class-Path: chess-core.jar\n' > "$BUILD/manifest.txt"
+jar --create --file "$BUILD/chess-ui.jar" \
+    --main-class main.Main \
+    --manifest "$BUILD/manifest.txt" \
+    -C "$UI_CLASSES" .
+
+javac --release 17 --limit-modules java.base \
+      -cp "$BUILD/chess-core.jar" \
+      -d "$TEST_CLASSES" \
+      $(find test -name '*.java')
+java -cp "$BUILD/chess-core.jar:$TEST_CLASSES" main.engine.PerftTest
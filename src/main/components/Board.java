@@ -1,4 +1,6 @@
-package main.models;
+package main.components;
+
+import main.models.*;
 
 import java.awt.*;
 import java.util.ArrayList;
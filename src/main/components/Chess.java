@@ -1,8 +1,6 @@
 package main.components;
 
 import main.models.*;
-import main.models.movables.King;
-import main.models.movables.Rook;
 
 import javax.swing.*;
 import java.awt.*;
@@ -38,12 +36,6 @@ public class Chess extends JPanel {
 //                        System.out.println(selectedFigure.hasMoved());
 
                     } else if (moves != null && moves.contains(selectedCoordinate)) {
-                        // Castle or Move
-                        if (selectedFigure.getRank().equals(Rank.KING)
-                                && !selectedFigure.hasMoved()) {
-//                                && isCastleMove(selectedCoordinate)) {
-                            // Castle move return true or false
-                        }
                         moveSelectedFigure(selectedPoint);
                         changeTurn();
                     }
@@ -156,7 +148,7 @@ public class Chess extends JPanel {
      * <p>Paints available moves for currently selected figure.</p>
      *
      * @param g        paintComponent graphics
-     * @param movesSet a list returned from <code>Movable</code>
+     * @param movesSet a set returned from <code>Figures</code>
      */
     private void paintMoves(Graphics g,
                             HashSet<Coordinate> movesSet) {
@@ -205,7 +197,7 @@ public class Chess extends JPanel {
      * <p>Repaint old <code>moves</code>, assigns new list</p>
      * to <code>moves</code> and repaints again
      *
-     * @param movesSet a list returned from <code>Movable</code>
+     * @param movesSet a set returned from <code>Figures</code>
      */
     private void repaintMoves(HashSet<Coordinate> movesSet) {
         repaintMoves();
@@ -231,51 +223,22 @@ public class Chess extends JPanel {
         }
     }
 
-    private void moveAndRepaintFigure(Point SelectedPoint) {
-        Coordinate selectedCoordinate = board.getCoordinateAt(SelectedPoint);
-        // remove figure from old position and repaint
+    /**
+     * <p>Plays the move of the selected figure. Castle moves, en passant
+     * captures and promotions change more than the two squares of the
+     * move, so the whole board is repainted.</p>
+     * @param selectedPoint <code>Point</code> of the destination square
+     */
+    public void moveSelectedFigure(Point selectedPoint) {
+        Coordinate selectedCoordinate = board.getCoordinateAt(selectedPoint);
         Coordinate oldCoordinate = board.getCoordinateAt(selectedFigure.getLocation());
-        Figure f = figures.getFiguresMap().remove(oldCoordinate);
-        repaintMoves(null);
-        // TEST
+
         repaintControlledMoves(null, null);
         repaintSelectedSquare();
-//        repaint(board.getSquareAt(oldCoordinate));
-
-        // Assign figure to new position and repaint
-        f.setLocation(SelectedPoint);
-        figures.getFiguresMap().put(selectedCoordinate, f);
-        repaint(board.getSquareAt(selectedCoordinate));
-
-        selectedFigure.setMoved();
-    }
-
-    public void moveSelectedFigure(Point selectedPoint) {
-
-        // TODO assess if selected figure is a king and if it moved to a castling position
-        //      and move appropriate rook to the castle as well
-
-        //determine if king is selectedFigure
-        if (selectedFigure.getRank().equals(Rank.KING) && !selectedFigure.hasMoved()) {
-//            Rook r = (Rook) figures.getMovable(Rank.ROOK);
-            Figure rook = figures.getCastleRook(selectedPoint);
-            // move and repaint rook
+        if (figures.move(oldCoordinate, selectedCoordinate)) {
+            repaint();
         }
-        moveAndRepaintFigure(selectedPoint);
     }
-//
-//    private boolean isCastleMove(Coordinate selectedCoordinate) {
-//        if (selectedFigure.getRank().equals(Rank.KING) && !selectedFigure.hasMoved()) {
-//            switch (selectedFigure.getSide()) {
-//                case WHITE -> {
-//                    if (selectedCoordinate.equals(Coordinate.A7)
-//                     || selectedCoordinate.equals(Coordinate.A3)) {
-//
-//                    }
-//                }
-//            }
-//        }
-//    }
 
     /**
      * <p>Repaints selected square and its previous position.</p>
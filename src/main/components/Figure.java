@@ -1,4 +1,6 @@
-package main.models;
+package main.components;
+
+import main.models.*;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
@@ -26,11 +28,17 @@ public class Figure {
         this.position = position;
         this.SQUARE_SIZE = resolution / 8;
 
-        String path = "src/main/resources/figure_images/" +
+        setFigureImage(getPath(side, rank));
+    }
+
+    //
+    // Field initializers
+    //
+    private static String getPath(Side side, Rank rank) {
+        return "src/main/resources/figure_images/" +
                 side.getSide() +
                 rank.name().toLowerCase() +
                 ".png";
-        setFigureImage(path);
     }
 
     //
@@ -75,6 +83,15 @@ public class Figure {
         return this.rank;
     }
 
+    /**
+     * <p>Replaces a pawn reaching the last row by the promoted figure.</p>
+     * @param rank rank of the promoted figure
+     */
+    public void setRank(Rank rank) {
+        this.rank = rank;
+        setFigureImage(getPath(side, rank));
+    }
+
     /**
      * <p>Initialize a figure image according to subclass values.</p>
      * @param path String specifying a path to the appropriate image
@@ -1,65 +1,78 @@
 package main.components;
 
 import main.models.*;
-import main.models.movables.*;
+import main.models.movables.MoveGenerator;
 
 import java.awt.*;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
+import java.util.Map;
 
 /**
  * Contains information about figures and their methods
  * for moving over the board
  */
 public class Figures {
+    private static final Coordinate[] COORDINATES = Coordinate.values();
+
     private final HashMap<Point, Coordinate>  coordinates;
     private final HashMap<Coordinate, Figure> figuresMap;
-    private final HashMap<Rank, Movable>      movables;
+    private final Position                    position;
+    private final int[]                       moves;
 
     public Figures(HashMap<Coordinate, Figure> figuresMap,
                    HashMap<Point, Coordinate> coordinates) {
         this.figuresMap = figuresMap;
         this.coordinates = coordinates;
-        this.movables = setMovables();
+        this.position = setPosition(figuresMap);
+        this.moves = new int[Move.MAX_MOVES];
     }
 
+    //
+    // Field initializers
+    //
     /**
-     * <p>Instantiates abstract representations of figures that will process
-     * validating moves over the board.</p>
-     * @return A map of Movable figure representations
+     * <p>Builds bitboards from the figures on the board. Castling is
+     * available while the king and the rook have not moved.</p>
+     * @param figuresMap coordinates mapped to figures
+     * @return bitboard position
      */
-    private HashMap<Rank, Movable> setMovables() {
-        HashMap<Rank, Movable> map = new HashMap<>();
+    private static Position setPosition(HashMap<Coordinate, Figure> figuresMap) {
+        Position position = new Position();
+        figuresMap.forEach((c, f) -> position.put(f.getSide(), f.getRank(), c.ordinal()));
+
+        int castling = 0;
+        if (isUnmoved(figuresMap, Coordinate.A5, Side.WHITE, Rank.KING)) {
+            if (isUnmoved(figuresMap, Coordinate.A8, Side.WHITE, Rank.ROOK)) {
+                castling |= Position.WHITE_SMALL_CASTLE;
+            }
+            if (isUnmoved(figuresMap, Coordinate.A1, Side.WHITE, Rank.ROOK)) {
+                castling |= Position.WHITE_BIG_CASTLE;
+            }
+        }
+        if (isUnmoved(figuresMap, Coordinate.H5, Side.BLACK, Rank.KING)) {
+            if (isUnmoved(figuresMap, Coordinate.H8, Side.BLACK, Rank.ROOK)) {
+                castling |= Position.BLACK_SMALL_CASTLE;
+            }
+            if (isUnmoved(figuresMap, Coordinate.H1, Side.BLACK, Rank.ROOK)) {
+                castling |= Position.BLACK_BIG_CASTLE;
+            }
+        }
+        position.setCastling(castling);
 
-        map.put(Rank.PAWN,
-                new Pawn(
-                        figuresMap,
-                        coordinates));
-        map.put(Rank.KNIGHT,
-                new Knight(
-                        figuresMap,
-                        coordinates));
-        map.put(Rank.ROOK,
-                new Rook(
-                        figuresMap,
-                        coordinates));
-        map.put(Rank.BISHOP,
-                new Bishop(
-                        figuresMap,
-                        coordinates));
-        map.put(Rank.QUEEN,
-                new Queen(
-                        map.get(Rank.BISHOP),
-                        map.get(Rank.ROOK)));
-        map.put(Rank.KING,
-                new King(
-                        figuresMap,
-                        coordinates));
+        return position;
+    }
+
+    private static boolean isUnmoved(HashMap<Coordinate, Figure> figuresMap,
+                                     Coordinate c, Side side, Rank rank) {
+        Figure f = figuresMap.get(c);
 
-        return map;
+        return f != null && f.getSide().equals(side) && f.getRank().equals(rank) && !f.hasMoved();
     }
 
+    //
+    // Methods
+    //
     public HashMap<Coordinate, Figure> getFiguresMap() {
         return this.figuresMap;
     }
@@ -68,8 +81,13 @@ public class Figures {
         return this.coordinates;
     }
 
-    public Movable getMovable(Rank rank) {
-        return movables.get(rank);
+    /**
+     * <p>Bitboard representation of <code>figuresMap</code>, which must
+     * be updated on every move to keep both in sync.</p>
+     * @return bitboard position
+     */
+    public Position getPosition() {
+        return this.position;
     }
 
     public Figure getFigureAt(Coordinate selectedCoordinate) {
@@ -80,201 +98,117 @@ public class Figures {
         return getFigureAt(coordinates.get(selectedPoint));
     }
 
-    public Figure getCastleRook(Point selectedPoint) {
-        Coordinate selectedCoordinate = coordinates.get(selectedPoint);
-        Figure rook = null;
-
-        switch (selectedCoordinate) {
-            case A3 -> rook = figuresMap.get(Coordinate.A1);
-            case A7 -> rook = figuresMap.get(Coordinate.A8);
-            case H3 -> rook = figuresMap.get(Coordinate.H1);
-            case H7 -> rook = figuresMap.get(Coordinate.H8);
-        }
-
-        return rook;
-    }
-
     /**
-     * <p>Calculates available moves for a given figure.</p>
+     * <p>Looks up legal moves of a given figure in the bitboard position,
+     * so checks, pins and castling are validated by the engine's model.</p>
      * @param selectedFigure selected figure on board
      * @return a set of available moves
      */
     public HashSet<Coordinate> getMoves(Figure selectedFigure) {
-        Coordinate position = coordinates.get(selectedFigure.getLocation());
-        HashSet<Coordinate> moves = movables.get(selectedFigure.getRank()).getMoves(selectedFigure);
-        HashSet<Coordinate> checkMoves = getCheckMoves(selectedFigure);
-
-        // When king is selected, restrict moves from opponent controlled positions
-        // and add Castle moves if applicable.
-        if (selectedFigure.getRank().equals(Rank.KING)) {
-            HashSet<Coordinate> controlledMoves = getControlledMoves(selectedFigure);
-            HashSet<Coordinate> castleMoves = getCastleMoves(selectedFigure, controlledMoves, checkMoves);
-
-            moves.addAll(castleMoves);
-            moves.removeAll(controlledMoves); // Restrict from controlled moves
-        }
-        /*
-        Evaluate if a check is imminent.
-        When only one opponent checks, either the king can move,
-        the check can be controlled or the opposite figure
-        can be removed, otherwise the king must move.
-
-        TODO when no moves are left for checked king, the game's over.
-         */
-        else if (! checkMoves.isEmpty()) {
-            int imminentChecks = getImminentChecksCount(selectedFigure, checkMoves);
-            int controlledChecks = getControlledChecksCount(selectedFigure, checkMoves);
-
-            if (imminentChecks == 1) {
-                // Restrict moves to the check trajectory when one opponent figure checks
-                // and either the selected figure or none controls the check
-                if (checkMoves.contains(position) || controlledChecks == 0) {
-                    moves.retainAll(checkMoves);
-                }
-            }
-            else if (imminentChecks > 1 && imminentChecks == controlledChecks) {
-                /*
-                Process every single figure that checks and determine if it's blocked.
-                If it is and the blocking figure is the selected, restrict its moves
-                to the check trajectory.
-                 */
-
-                // Get all checking figure's positions
-                HashSet<Figure> checkingFigures = new HashSet<>();
-                HashSet<Coordinate> tempMoves = new HashSet<>();
-
-                for (Coordinate c : checkMoves) {
-                    Figure f = getFigureAt(c);
-
-                    if (f != null && !(f.getSide().equals(selectedFigure.getSide()))) {
-                        checkingFigures.add(f);
-                    }
-                }
-
-                // Assess if a friendly figure controls the check move of the checking figure
-                for (Figure f : checkingFigures) {
-                    tempMoves.addAll(movables.get(f.getRank()).getCheckMoves(f));
-                    if (tempMoves.contains(position)) {
-                        break;
-                    }
-                    tempMoves.clear();
-                }
+        int square = coordinates.get(selectedFigure.getLocation()).ordinal();
+        int count = Movable.getMoves(position, square, moves, 0);
+        long targets = 0;
 
-                if (! tempMoves.isEmpty()) {
-                    moves.retainAll(tempMoves);
-                }
-            }
-            else {
-                moves.clear();
-            }
+        for (int i = 0; i < count; i++) {
+            targets |= Bitboards.getBit(Move.getTo(moves[i]));
         }
 
-        return moves;
+        return Bitboards.getCoordinates(targets);
     }
 
     /**
-     * <p>Calculates available moves for all figures of the opposite side.</p>
-     * @param selectedFigure a selected figure of the current turn
-     * @return a set of all opponent's controlled moves
+     * <p>Plays the legal move of a figure in the bitboard position and moves
+     * the figures of <code>figuresMap</code> to match, including the rook of
+     * a castle move, the pawn captured en passant and a pawn promoting to a
+     * queen.</p>
+     * @param origin <code>Coordinate</code> of the moving figure
+     * @param destination <code>Coordinate</code> the figure moves to
+     * @return false when no legal move leads from the origin to the destination
      */
-    public HashSet<Coordinate> getControlledMoves(Figure selectedFigure) {
-        HashSet<Coordinate> moves = new HashSet<>();
+    public boolean move(Coordinate origin, Coordinate destination) {
+        int move = getMove(origin.ordinal(), destination.ordinal());
+        if (move == Move.NONE) {
+            return false;
+        }
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
 
-        for (Figure opponent : figuresMap.values()) {
-            if (! opponent.getSide().equals(selectedFigure.getSide())) {
-                moves.addAll(movables.get(opponent.getRank()).getControlledMoves(opponent));
+        if (Move.isEnPassant(move)) {
+            figuresMap.remove(COORDINATES[from < to ? to - 8 : to + 8]);
+        }
+        moveFigure(from, to);
+        if (Move.isCastle(move)) {
+            if (to > from) {
+                moveFigure(to + 1, to - 1);     // Small castle
+            } else {
+                moveFigure(to - 2, to + 1);     // Big castle
             }
         }
+        if (Move.isPromotion(move)) {
+            figuresMap.get(destination).setRank(Move.getPromotion(move));
+        }
 
-        return moves;
-    }
-
-    /**
-     * <p>Returns an opponents trajectory on the selected figure's king when
-     * at most one friendly figure stands in the way to check.
-     * Use <code>getControlledChecks</code> to compare if
-     * the count of figures match on both sides. </p>
-     * @param selectedFigure currently selected <code>Figure</code>
-     * @return a set of check moves from the opposite side
-     */
-    public HashSet<Coordinate> getCheckMoves(Figure selectedFigure) {
-        HashSet<Coordinate> moves = new HashSet<>();
-
-        /*
-        This method might require more granular control on returning check moves as it allows
-        figures to move to illegal squares exposing king to actual check.
-        Perhaps separating the check moves for singular figure?
-         */
-        for (Figure opponent : figuresMap.values()) {
-            if (! opponent.getSide().equals(selectedFigure.getSide())) {
-                moves.addAll(movables.get(opponent.getRank()).getCheckMoves(opponent));
-            }
+        // The undo stack of a long game keeps only the keys needed to find repetitions
+        if (position.getPly() == Position.MAX_PLY) {
+            position.set(new Position(position));
         }
+        position.makeMove(move);
 
-        return moves;
+        return true;
     }
 
     /**
-     * <p>Evaluates how many opposite figures are imminent threat to the King.</p>
-     * @param selectedFigure side of the current turn
-     * @param checkMoves all imminent checks on the current side's King
-     * @return number of imminent checks
+     * @param from ordinal value of the origin <code>Coordinate</code>
+     * @param to ordinal value of the destination <code>Coordinate</code>
+     * @return legal move of the side to move, a queen promotion
+     * when the pawn promotes, or <code>Move.NONE</code>
      */
-    private int getImminentChecksCount(Figure selectedFigure, HashSet<Coordinate> checkMoves) {
-        int imminentChecks = 0;
+    private int getMove(int from, int to) {
+        int count = MoveGenerator.getLegalMoves(position, position.getTurn(), moves, 0);
+
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
 
-        for (Coordinate c : checkMoves) {
-            Figure f = getFigureAt(c);
-            if (f != null && !(f.getSide().equals(selectedFigure.getSide()) || f.getRank().equals(Rank.KING))) {
-                imminentChecks++;
+            if (Move.getFrom(move) == from && Move.getTo(move) == to
+                    && (!Move.isPromotion(move) || Move.getPromotion(move).equals(Rank.QUEEN))) {
+                return move;
             }
         }
 
-        return imminentChecks;
+        return Move.NONE;
     }
 
     /**
-     * <p>Evaluates how many checks are controlled by friendly figures.</p>
-     * @param selectedFigure side of the current turn
-     * @param checkMoves all imminent checks on the current side's King
-     * @return number of controlled checks
+     * <p>Moves a figure of <code>figuresMap</code> and removes the figure
+     * occupying the destination.</p>
+     * @param from ordinal value of the origin <code>Coordinate</code>
+     * @param to ordinal value of the destination <code>Coordinate</code>
      */
-    private int getControlledChecksCount(Figure selectedFigure, HashSet<Coordinate> checkMoves) {
-        int controlledChecks = 0;
+    private void moveFigure(int from, int to) {
+        Figure figure = figuresMap.remove(COORDINATES[from]);
+
+        figuresMap.remove(COORDINATES[to]);
+        figure.setLocation(getPoint(COORDINATES[to]));
+        figuresMap.put(COORDINATES[to], figure);
+    }
 
-        for (Coordinate c : checkMoves) {
-            Figure f = getFigureAt(c);
-            if (f != null && f.getSide().equals(selectedFigure.getSide())) {
-                controlledChecks++;
+    private Point getPoint(Coordinate coordinate) {
+        for (Map.Entry<Point, Coordinate> entry : coordinates.entrySet()) {
+            if (entry.getValue().equals(coordinate)) {
+                return entry.getKey();
             }
         }
 
-        return controlledChecks;
+        return null;
     }
 
     /**
-     * <p>Evaluates if King is in check</p>
-     * @param selectedFigure side of the currently selected figure
-     * @param checkMoves imminent checks on the current side's king
-     * @return true if imminent checks count is greater than controlled checks count
+     * <p>Finds squares controlled by all figures of the opposite side.</p>
+     * @param selectedFigure a selected figure of the current turn
+     * @return a set of all opponent's controlled moves
      */
-    public boolean isCheck(Figure selectedFigure, HashSet<Coordinate> checkMoves) {
-        return getImminentChecksCount(selectedFigure, checkMoves)
-                > getControlledChecksCount(selectedFigure, checkMoves);
-    }
-
-    public HashSet<Coordinate> getCastleMoves(Figure selectedFigure,
-                                              HashSet<Coordinate> controlledMoves,
-                                              HashSet<Coordinate> checkMoves) {
-        HashSet<Coordinate> moves = new HashSet<>();
-
-        if ( !selectedFigure.hasMoved() && !isCheck(selectedFigure, checkMoves) ) {
-            King king = (King) movables.get(selectedFigure.getRank());
-
-            moves.addAll(king.getBigCastleMove(selectedFigure, controlledMoves));
-            moves.addAll(king.getSmallCastleMove(selectedFigure, controlledMoves));
-        }
-
-        return moves;
+    public HashSet<Coordinate> getControlledMoves(Figure selectedFigure) {
+        return Bitboards.getCoordinates(
+                MoveGenerator.getControlled(position, selectedFigure.getSide().getOpposite()));
     }
 }
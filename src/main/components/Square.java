@@ -1,4 +1,4 @@
-package main.models;
+package main.components;
 
 import java.awt.*;
 
@@ -0,0 +1,84 @@
+package main.engine;
+
+import main.models.FigureListener;
+import main.models.Side;
+
+import java.util.Arrays;
+
+/**
+ * First layer of a <code>Network</code> for both perspectives, kept up to
+ * date as figures are put and removed, see <code>Position.setListener</code>.
+ * A quiet move adds one weight column and subtracts another per perspective,
+ * so an evaluation costs only the output layer.
+ */
+public class Accumulator implements FigureListener {
+    private static final Side[] SIDES = Side.values();
+
+    private final Network network;
+    private final short[] weights;
+    // Indexed by perspective
+    private final short[][] values;
+
+    //
+    // Constructor
+    //
+    /**
+     * @param network weights of the network
+     */
+    public Accumulator(Network network) {
+        this.network = network;
+        this.weights = network.getWeights();
+        this.values = new short[SIDES.length][network.getHidden()];
+        clear();
+    }
+
+    //
+    // Methods
+    //
+    @Override
+    public void clear() {
+        for (short[] perspective : values) {
+            System.arraycopy(network.getBiases(), 0, perspective, 0, perspective.length);
+        }
+    }
+
+    @Override
+    public void put(int piece, int square) {
+        for (Side perspective : SIDES) {
+            short[] accumulator = values[perspective.ordinal()];
+            int offset = network.getOffset(perspective, piece, square);
+
+            for (int i = 0; i < accumulator.length; i++) {
+                accumulator[i] += weights[offset + i];
+            }
+        }
+    }
+
+    @Override
+    public void remove(int piece, int square) {
+        for (Side perspective : SIDES) {
+            short[] accumulator = values[perspective.ordinal()];
+            int offset = network.getOffset(perspective, piece, square);
+
+            for (int i = 0; i < accumulator.length; i++) {
+                accumulator[i] -= weights[offset + i];
+            }
+        }
+    }
+
+    /**
+     * @param accumulator accumulator of the same network
+     * @return true when both perspectives hold the same sums
+     */
+    boolean hasSameValues(Accumulator accumulator) {
+        return Arrays.deepEquals(values, accumulator.values);
+    }
+
+    /**
+     * @param turn side to move
+     * @return score in centipawns, positive when the side to move is ahead
+     */
+    public int evaluate(Side turn) {
+        return network.evaluate(values[turn.ordinal()], values[turn.getOpposite().ordinal()]);
+    }
+}
@@ -0,0 +1,64 @@
+package main.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Storage in direct buffers outside the Java heap, so large tables neither
+ * count against the heap size nor get copied by the garbage collector.
+ * A buffer holds at most 2 GB, so the values are split into chunks of 2^27.
+ * Huge pages are not requested: <code>-XX:+UseLargePages</code> backs
+ * only the Java heap, so a heap table gets them with that flag and this
+ * storage does not. The JVM limits direct memory to the maximum heap size
+ * unless <code>-XX:MaxDirectMemorySize</code> is set.
+ */
+final class DirectStorage implements LongStorage {
+    private static final int CHUNK_SHIFT = 27;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+    // Zeros copied in bulk by clear
+    private static final long[] ZEROS = new long[4096];
+
+    private final LongBuffer[] chunks;
+    private final long size;
+
+    DirectStorage(long size) {
+        int count = (int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT);
+
+        this.chunks = new LongBuffer[count];
+        this.size = size;
+        for (int i = 0; i < count; i++) {
+            long length = Math.min(size - ((long) i << CHUNK_SHIFT), 1L << CHUNK_SHIFT);
+            chunks[i] = ByteBuffer.allocateDirect((int) length * Long.BYTES)
+                    .order(ByteOrder.nativeOrder())
+                    .asLongBuffer();
+        }
+    }
+
+    @Override
+    public long get(long index) {
+        return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) (index & CHUNK_MASK));
+    }
+
+    @Override
+    public void set(long index, long value) {
+        chunks[(int) (index >>> CHUNK_SHIFT)].put((int) (index & CHUNK_MASK), value);
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void clear(long from, long to) {
+        while (from < to) {
+            LongBuffer chunk = chunks[(int) (from >>> CHUNK_SHIFT)];
+            int index = (int) (from & CHUNK_MASK);
+            int length = (int) Math.min(Math.min(to - from, ZEROS.length), chunk.limit() - index);
+
+            chunk.put(index, ZEROS, 0, length);
+            from += length;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package main.engine;
+
+import main.models.Fen;
+import main.models.Move;
+import main.models.Position;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Lazy SMP search. Helper threads search the same root as the main search
+ * and share its <code>TranspositionTable</code>, skipping different iterations
+ * so they fill the table with results the main search finds later.
+ * Only the main search reports results and its limits stop every thread.
+ * <p><code>Engine [-depth N] [-nodes N] [-time ms] [-threads N] [-hash MB] [-offheap]
+ * [-evalcache MB] [-shared-evalcache] [-network file] [fen]</code></p>
+ * <p><code>Engine bench [depth] [file]</code> searches the positions of an EPD file
+ * to a fixed depth and prints the nodes it took</p>
+ * <p>Both accept <code>-no-nullmove</code>, <code>-no-lmr</code>, <code>-no-futility</code>
+ * and <code>-no-razoring</code> to turn off a selective search technique.</p>
+ */
+public class Engine {
+    public static final int MAX_THREADS = 256;
+
+    private static final String BENCH_PATH = "src/main/resources/perft/standard.epd";
+    private static final int BENCH_DEPTH = 7;
+
+    private final SearchOptions options;
+
+    private TranspositionTable table;
+    private int evaluationSize;
+    // Evaluation cache of every thread or null when each thread owns one
+    private EvaluationCache evaluations;
+    private Network network;
+    private Search[] searches;
+
+    //
+    // Constructor
+    //
+    /**
+     * @param threads number of search threads including the main search
+     * @param megabytes size of the transposition table
+     */
+    public Engine(int threads, int megabytes) {
+        this(threads, megabytes, false);
+    }
+
+    /**
+     * @param threads number of search threads including the main search
+     * @param megabytes size of the transposition table
+     * @param offHeap true to allocate the transposition table outside the heap
+     */
+    public Engine(int threads, int megabytes, boolean offHeap) {
+        this.options = new SearchOptions();
+        this.table = new TranspositionTable(megabytes, offHeap);
+        this.evaluationSize = EvaluationCache.DEFAULT_SIZE;
+        setThreads(threads);
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * <p>Searches the position on every thread until the main search
+     * reaches a limit or is stopped. The node limit counts the nodes
+     * of the main search only.</p>
+     * @param root position to search, not modified
+     * @param limits budget of the search
+     * @param listener receives the result of every completed iteration or null
+     * @return result of the main search
+     */
+    public SearchResult search(Position root, SearchLimits limits, Consumer<SearchResult> listener) {
+        Search[] searches = this.searches;
+        SearchLimits helperLimits = new SearchLimits(limits.getDepth(), 0, 0);
+        List<Thread> helpers = new ArrayList<>(searches.length - 1);
+
+        for (Search search : searches) {
+            search.clearStop();
+            search.clearNodes();
+        }
+        for (int i = 1; i < searches.length; i++) {
+            Search helper = searches[i];
+            Thread thread = new Thread(() -> helper.search(root, helperLimits, null), "search-" + i);
+
+            thread.setDaemon(true);
+            thread.start();
+            helpers.add(thread);
+        }
+
+        SearchResult result = searches[0].search(root, limits, listener == null ? null
+                : r -> listener.accept(new SearchResult(r.getScore(), r.getDepth(), r.getPv(),
+                        getNodes(), r.getNanos())));
+
+        for (int i = 1; i < searches.length; i++) {
+            searches[i].stop();
+        }
+        for (Thread thread : helpers) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        return new SearchResult(result.getScore(), result.getDepth(), result.getPv(),
+                getNodes(), result.getNanos());
+    }
+
+    /**
+     * <p>Stops a running search from another thread. A stop arriving
+     * before the search started its first iteration may be dropped,
+     * see <code>Search.clearStop</code>.</p>
+     */
+    public void stop() {
+        for (Search search : searches) {
+            search.stop();
+        }
+    }
+
+    /**
+     * <p>Forgets every result of previous games, clearing the table in parallel.</p>
+     */
+    public void newGame() {
+        table.clear();
+    }
+
+    /**
+     * @return nodes searched by all threads of the current or last search
+     */
+    public long getNodes() {
+        long nodes = 0;
+
+        for (Search search : searches) {
+            nodes += search.getNodes();
+        }
+
+        return nodes;
+    }
+
+    //
+    // Settings, not to be changed during a search
+    //
+    public int getThreads() {
+        return searches.length;
+    }
+
+    /**
+     * @param threads number of search threads including the main search
+     */
+    public void setThreads(int threads) {
+        if (threads < 1 || threads > MAX_THREADS) {
+            throw new IllegalArgumentException("Thread count out of range: " + threads);
+        }
+        Search[] searches = new Search[threads];
+
+        for (int i = 0; i < threads; i++) {
+            EvaluationCache cache = evaluations != null ? evaluations : new EvaluationCache(evaluationSize);
+            searches[i] = new Search(table, options, i, cache);
+            searches[i].setNetwork(network);
+        }
+        this.searches = searches;
+    }
+
+    /**
+     * @return switches of the selective search shared by every thread
+     */
+    public SearchOptions getOptions() {
+        return options;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * <p>Replaces the evaluation caches by empty ones.</p>
+     * @param megabytes size of every evaluation cache
+     * @param shared true for one cache shared by every thread, false for one cache per thread
+     */
+    public void setEvaluationCache(int megabytes, boolean shared) {
+        int threads = getThreads();
+
+        this.searches = null;
+        this.evaluations = null;
+        this.evaluationSize = megabytes;
+        this.evaluations = shared ? new EvaluationCache(megabytes) : null;
+        setThreads(threads);
+    }
+
+    public Network getNetwork() {
+        return network;
+    }
+
+    /**
+     * <p>Evaluates positions by a neural network on every thread and
+     * replaces the evaluation caches by empty ones.</p>
+     * @param network weights of the network or null for the handcrafted evaluation
+     */
+    public void setNetwork(Network network) {
+        this.network = network;
+        setEvaluationCache(evaluationSize, evaluations != null);
+    }
+
+    /**
+     * @return share of evaluation cache probes of every thread finding their entry from 0 to 1
+     */
+    public double getEvaluationHitRate() {
+        if (evaluations != null) {
+            return evaluations.getHitRate();
+        }
+        long probes = 0;
+        long hits = 0;
+
+        for (Search search : searches) {
+            probes += search.getEvaluationCache().getProbes();
+            hits += search.getEvaluationCache().getHits();
+        }
+
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    /**
+     * @return share of pawn table probes of every thread finding their entry from 0 to 1
+     */
+    public double getPawnHitRate() {
+        long probes = 0;
+        long hits = 0;
+
+        for (Search search : searches) {
+            probes += search.getPawnTable().getProbes();
+            hits += search.getPawnTable().getHits();
+        }
+
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    /**
+     * <p>Replaces the transposition table by an empty one.</p>
+     * @param megabytes size of the transposition table
+     */
+    public void setHash(int megabytes) {
+        setHash(megabytes, table.isOffHeap());
+    }
+
+    /**
+     * <p>Replaces the transposition table by an empty one.</p>
+     * @param megabytes size of the transposition table
+     * @param offHeap true to allocate the transposition table outside the heap
+     */
+    public void setHash(int megabytes, boolean offHeap) {
+        int threads = getThreads();
+
+        // Release the previous table before allocating the new one
+        this.searches = null;
+        this.table = null;
+        this.table = new TranspositionTable(megabytes, offHeap);
+        setThreads(threads);
+    }
+
+    /**
+     * <p>Searches every position to a fixed depth from an empty table
+     * on a single thread, so node counts compare move ordering and pruning.</p>
+     * @param lines EPD lines starting with a FEN record
+     * @param depth depth of every search
+     * @param options switches of the selective search
+     * @param out stream to print to
+     * @return nodes of all searches
+     */
+    public static long bench(List<String> lines, int depth, SearchOptions options, PrintStream out) {
+        long nodes = 0;
+        long time = 0;
+
+        for (String line : lines) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String fen = line.split(";")[0].trim();
+            Engine engine = new Engine(1, TranspositionTable.DEFAULT_SIZE);
+            engine.getOptions().set(options);
+            SearchResult result = engine.search(Fen.getPosition(fen), new SearchLimits(depth, 0, 0), null);
+
+            out.printf("%-80s %10d %s%n", fen, result.getNodes(), Move.toString(result.getBestMove()));
+            nodes += result.getNodes();
+            time += result.getNanos();
+        }
+        out.printf("%d nodes, %d ms, %d nodes/s%n", nodes, time / 1_000_000, Perft.getNodesPerSecond(nodes, time));
+
+        return nodes;
+    }
+
+    public static void main(String[] args) throws IOException {
+        SearchOptions options = new SearchOptions();
+        List<String> arguments = new ArrayList<>();
+
+        for (String arg : args) {
+            switch (arg) {
+                case "-no-nullmove" -> options.setNullMove(false);
+                case "-no-lmr" -> options.setLateMoveReductions(false);
+                case "-no-futility" -> options.setFutility(false);
+                case "-no-razoring" -> options.setRazoring(false);
+                default -> arguments.add(arg);
+            }
+        }
+        args = arguments.toArray(new String[0]);
+
+        if (args.length > 0 && args[0].equals("bench")) {
+            int depth = args.length > 1 ? Integer.parseInt(args[1]) : BENCH_DEPTH;
+            Path path = Path.of(args.length > 2 ? args[2] : BENCH_PATH);
+
+            bench(Files.readAllLines(path), depth, options, System.out);
+            return;
+        }
+
+        int depth = 0;
+        long nodes = 0;
+        long time = 0;
+        int threads = 1;
+        int megabytes = TranspositionTable.DEFAULT_SIZE;
+        boolean offHeap = false;
+        int evaluationSize = EvaluationCache.DEFAULT_SIZE;
+        boolean sharedEvaluations = false;
+        Path network = null;
+        List<String> fen = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-depth" -> depth = Integer.parseInt(args[++i]);
+                case "-nodes" -> nodes = Long.parseLong(args[++i]);
+                case "-time" -> time = Long.parseLong(args[++i]);
+                case "-threads" -> threads = Integer.parseInt(args[++i]);
+                case "-hash" -> megabytes = Integer.parseInt(args[++i]);
+                case "-offheap" -> offHeap = true;
+                case "-evalcache" -> evaluationSize = Integer.parseInt(args[++i]);
+                case "-shared-evalcache" -> sharedEvaluations = true;
+                case "-network" -> network = Path.of(args[++i]);
+                default -> fen.add(args[i]);
+            }
+        }
+        if (depth == 0 && nodes == 0 && time == 0) {
+            time = 5000;
+        }
+
+        Position position = Fen.getPosition(fen.isEmpty() ? Fen.START_POSITION : String.join(" ", fen));
+        Engine engine = new Engine(threads, megabytes, offHeap);
+        engine.getOptions().set(options);
+        engine.setEvaluationCache(evaluationSize, sharedEvaluations);
+        if (network != null) {
+            engine.setNetwork(Network.load(network));
+        }
+        SearchResult result = engine.search(position, new SearchLimits(depth, nodes, time),
+                r -> System.out.println(Search.getInfo(r)));
+        TranspositionTable table = engine.getTable();
+
+        System.out.printf("%d threads, hash %d MB%s, %.1f%% hits, %d permille full, %.1f%% pawn hits%n",
+                threads, table.getMegabytes(), table.isOffHeap() ? " off-heap" : "",
+                table.getHitRate() * 100, table.getHashFull(), engine.getPawnHitRate() * 100);
+        System.out.printf("evaluation cache %d MB%s, %.1f%% hits%n", evaluationSize,
+                sharedEvaluations ? " shared" : " per thread", engine.getEvaluationHitRate() * 100);
+        System.out.println("bestmove " + Move.toString(result.getBestMove()));
+    }
+}
@@ -0,0 +1,60 @@
+package main.engine;
+
+import main.models.PieceSquareTable;
+import main.models.Position;
+import main.models.Rank;
+import main.models.Side;
+
+/**
+ * Static evaluation of a position in centipawns from the side to move.
+ * Figures are worth their <code>Rank.getValue()</code> in pawns plus a
+ * bonus for their square, see <code>PieceSquareTable</code>, and pawns
+ * by their structure, see <code>PawnStructure</code>.
+ * <p>The position keeps its middlegame and endgame scores up to date as
+ * figures are put and removed, so an evaluation only blends the two by
+ * the game phase.</p>
+ */
+public final class Evaluation {
+    public static final int PAWN_VALUE = PieceSquareTable.PAWN_VALUE;
+
+    private Evaluation() {}
+
+    /**
+     * @param rank rank of the figure
+     * @return value of the figure in centipawns
+     */
+    public static int getValue(Rank rank) {
+        return rank.getValue() * PAWN_VALUE;
+    }
+
+    /**
+     * <p>Tapers the middlegame score towards the endgame score as
+     * pieces leave the board.</p>
+     * @param position bitboard position
+     * @return score in centipawns, positive when the side to move is ahead
+     */
+    public static int evaluate(Position position) {
+        return evaluate(position, PawnStructure.evaluate(position));
+    }
+
+    /**
+     * <p>Evaluates the position with the pawn structure score cached by
+     * the pawn table.</p>
+     * @param position bitboard position
+     * @param pawns pawn table of the search thread
+     * @return score in centipawns, positive when the side to move is ahead
+     */
+    public static int evaluate(Position position, PawnTable pawns) {
+        return evaluate(position, pawns.probe(position));
+    }
+
+    private static int evaluate(Position position, int pawns) {
+        int middlegame = position.getMiddlegame() + PawnStructure.getMiddlegame(pawns);
+        int endgame = position.getEndgame() + PawnStructure.getEndgame(pawns);
+        // Promotions may raise the phase above its maximum
+        int phase = Math.min(position.getPhase(), PieceSquareTable.MAX_PHASE);
+        int score = (middlegame * phase + endgame * (PieceSquareTable.MAX_PHASE - phase)) / PieceSquareTable.MAX_PHASE;
+
+        return position.getTurn().equals(Side.WHITE) ? score : -score;
+    }
+}
@@ -0,0 +1,100 @@
+package main.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Direct-mapped cache of static evaluations by position key.
+ * Every entry is a single <code>long</code> holding the upper 48 bits
+ * of the key and the 16 bit score, so an entry is written in one store
+ * and can be shared by search threads without locking. A probe which
+ * finds another key counts as a miss, and a store always replaces the
+ * entry of its slot.
+ */
+public class EvaluationCache {
+    public static final int DEFAULT_SIZE = 1;
+    // Returned by a probe missing its entry, out of range of any score
+    public static final int NONE = Integer.MIN_VALUE;
+
+    private static final int ENTRY_BYTES = 8;
+    private static final int MAX_ENTRIES = 1 << 30;
+    private static final long KEY_MASK = ~0xFFFFL;
+
+    private final long[] entries;
+    private final int mask;
+    private final int megabytes;
+    private final LongAdder probes;
+    private final LongAdder hits;
+
+    //
+    // Constructor
+    //
+    /**
+     * @param megabytes size of the cache, rounded down to a power of two entries
+     */
+    public EvaluationCache(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Cache size out of range: " + megabytes);
+        }
+        long count = (long) megabytes * 1024 * 1024 / ENTRY_BYTES;
+        int size = (int) Long.highestOneBit(Math.min(count, MAX_ENTRIES));
+
+        this.entries = new long[size];
+        this.mask = size - 1;
+        this.megabytes = megabytes;
+        this.probes = new LongAdder();
+        this.hits = new LongAdder();
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * @param key position key
+     * @return cached score of the position or <code>NONE</code>
+     */
+    public int probe(long key) {
+        long entry = entries[(int) key & mask];
+
+        probes.increment();
+        if (entry != 0 && (entry & KEY_MASK) == (key & KEY_MASK)) {
+            hits.increment();
+            return (short) entry;
+        }
+
+        return NONE;
+    }
+
+    /**
+     * @param key position key
+     * @param score static evaluation of the position
+     */
+    public void store(long key, int score) {
+        entries[(int) key & mask] = (key & KEY_MASK) | (score & 0xFFFF);
+    }
+
+    public void clear() {
+        Arrays.fill(entries, 0L);
+    }
+
+    public int getMegabytes() {
+        return megabytes;
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return share of probes finding their entry from 0 to 1
+     */
+    public double getHitRate() {
+        long count = probes.sum();
+
+        return count == 0 ? 0 : (double) hits.sum() / count;
+    }
+}
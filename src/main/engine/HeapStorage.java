@@ -0,0 +1,37 @@
+package main.engine;
+
+import java.util.Arrays;
+
+/**
+ * Storage in a single <code>long[]</code> on the Java heap.
+ */
+final class HeapStorage implements LongStorage {
+    private final long[] values;
+
+    HeapStorage(long size) {
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Heap storage too large: " + size);
+        }
+        this.values = new long[(int) size];
+    }
+
+    @Override
+    public long get(long index) {
+        return values[(int) index];
+    }
+
+    @Override
+    public void set(long index, long value) {
+        values[(int) index] = value;
+    }
+
+    @Override
+    public long size() {
+        return values.length;
+    }
+
+    @Override
+    public void clear(long from, long to) {
+        Arrays.fill(values, (int) from, (int) to, 0L);
+    }
+}
@@ -0,0 +1,79 @@
+package main.engine;
+
+import main.models.Side;
+
+/**
+ * Statistics of quiet moves collected by a search. The history score of a
+ * move by origin and destination rises when it causes a cutoff and falls
+ * when another move does, saturating at <code>MAX_SCORE</code>. The
+ * countermove of a move is the last quiet move which refuted it.
+ */
+public class History {
+    public static final int MAX_SCORE = 16384;
+
+    private final int[][] scores;
+    private final int[][] counterMoves;
+
+    //
+    // Constructor
+    //
+    public History() {
+        this.scores = new int[Side.values().length][64 * 64];
+        this.counterMoves = new int[12][64];
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * @param side side making the move
+     * @param move packed move
+     * @return history score between <code>-MAX_SCORE</code> and <code>MAX_SCORE</code>
+     */
+    public int get(Side side, int move) {
+        // Origin and destination are the lowest twelve bits of a packed move
+        return scores[side.ordinal()][move & 0xFFF];
+    }
+
+    /**
+     * <p>Moves the score towards the bonus, so scores near the limit
+     * change less than others.</p>
+     * @param side side making the move
+     * @param move packed move
+     * @param bonus positive after a cutoff, negative when another move cut off
+     */
+    public void update(Side side, int move, int bonus) {
+        int[] values = scores[side.ordinal()];
+        int clamped = Math.max(-MAX_SCORE, Math.min(MAX_SCORE, bonus));
+
+        values[move & 0xFFF] += clamped - values[move & 0xFFF] * Math.abs(clamped) / MAX_SCORE;
+    }
+
+    /**
+     * @param piece piece value of the previous move, see <code>Position.getPiece</code>
+     * @param to destination of the previous move
+     * @return refutation of the previous move or zero, see <code>Move.NONE</code>
+     */
+    public int getCounterMove(int piece, int to) {
+        return counterMoves[piece][to];
+    }
+
+    public void setCounterMove(int piece, int to, int move) {
+        counterMoves[piece][to] = move;
+    }
+
+    /**
+     * <p>Halves every score, so statistics of previous searches fade.</p>
+     */
+    public void age() {
+        for (int[] values : scores) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] /= 2;
+            }
+        }
+    }
+
+    public static int getBonus(int depth) {
+        return Math.min(depth * depth * 16, MAX_SCORE);
+    }
+}
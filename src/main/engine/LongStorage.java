@@ -0,0 +1,21 @@
+package main.engine;
+
+/**
+ * Array of <code>long</code> values addressed by a <code>long</code> index,
+ * so tables may hold more than 2^31 values and live on or off the heap.
+ */
+interface LongStorage {
+
+    long get(long index);
+
+    void set(long index, long value);
+
+    long size();
+
+    /**
+     * <p>Sets values in the range to zero.</p>
+     * @param from first index
+     * @param to index after the last cleared value
+     */
+    void clear(long from, long to);
+}
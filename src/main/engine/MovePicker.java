@@ -0,0 +1,236 @@
+package main.engine;
+
+import main.models.Move;
+import main.models.Position;
+import main.models.Rank;
+import main.models.Side;
+import main.models.movables.MoveGenerator;
+
+/**
+ * Staged move ordering of a search node. Moves are returned in the order:
+ * <p>hash move, captures and promotions by most valuable victim and least
+ * valuable attacker, killer moves, countermove, quiet moves by history,
+ * captures losing material by static exchange</p>
+ * Every stage generates its moves only when it is reached, so a node cut
+ * off by the hash move or a capture never generates quiet moves.
+ * A quiescence picker returns the winning captures only.
+ */
+public class MovePicker {
+    // Stages
+    private static final int HASH_MOVE = 0;
+    private static final int GENERATE_CAPTURES = 1;
+    private static final int GOOD_CAPTURES = 2;
+    private static final int FIRST_KILLER = 3;
+    private static final int SECOND_KILLER = 4;
+    private static final int COUNTER_MOVE = 5;
+    private static final int GENERATE_QUIETS = 6;
+    private static final int QUIETS = 7;
+    private static final int BAD_CAPTURES = 8;
+    private static final int DONE = 9;
+
+    private final Position position;
+    private final History history;
+    private final int[] moves;
+    private final int[] scores;
+    private final int[] badCaptures;
+    private final int[] buffer;
+
+    private Side side;
+    private int stage;
+    private int index;
+    private int count;
+    private int badCount;
+    private boolean quiescence;
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+    private int counterMove;
+
+    //
+    // Constructor
+    //
+    /**
+     * @param position working position of the search
+     * @param history move statistics of the search
+     */
+    public MovePicker(Position position, History history) {
+        this.position = position;
+        this.history = history;
+        this.moves = new int[Move.MAX_MOVES];
+        this.scores = new int[Move.MAX_MOVES];
+        this.badCaptures = new int[Move.MAX_MOVES];
+        this.buffer = new int[Move.MAX_MOVES];
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * <p>Starts picking every pseudo-legal move of the position.</p>
+     * @param hashMove move of the transposition table or <code>Move.NONE</code>
+     * @param firstKiller latest quiet move causing a cutoff at the ply
+     * @param secondKiller previous quiet move causing a cutoff at the ply
+     * @param counterMove quiet move refuting the previous move
+     */
+    public void init(int hashMove, int firstKiller, int secondKiller, int counterMove) {
+        this.side = position.getTurn();
+        this.stage = HASH_MOVE;
+        this.quiescence = false;
+        this.hashMove = hashMove;
+        this.firstKiller = firstKiller;
+        this.secondKiller = secondKiller;
+        this.counterMove = counterMove;
+    }
+
+    /**
+     * <p>Starts picking the captures and promotions which do not lose
+     * material by static exchange.</p>
+     */
+    public void initQuiescence() {
+        init(Move.NONE, Move.NONE, Move.NONE, Move.NONE);
+        this.stage = GENERATE_CAPTURES;
+        this.quiescence = true;
+    }
+
+    /**
+     * @return next pseudo-legal move or <code>Move.NONE</code> when all are picked
+     */
+    public int next() {
+        while (true) {
+            switch (stage) {
+                case HASH_MOVE -> {
+                    stage = GENERATE_CAPTURES;
+                    if (MoveGenerator.isPseudoLegal(position, side, hashMove, buffer)) {
+                        return hashMove;
+                    }
+                }
+                case GENERATE_CAPTURES -> {
+                    count = MoveGenerator.getCaptures(position, side, moves, 0);
+                    index = 0;
+                    badCount = 0;
+                    for (int i = 0; i < count; i++) {
+                        scores[i] = getCaptureScore(moves[i]);
+                    }
+                    stage = GOOD_CAPTURES;
+                }
+                case GOOD_CAPTURES -> {
+                    if (index < count) {
+                        int move = pickBest();
+
+                        if (move == hashMove) {
+                            continue;
+                        }
+                        if (!Move.isPromotion(move) && !StaticExchange.isAtLeast(position, move, 0)) {
+                            badCaptures[badCount++] = move;
+                            continue;
+                        }
+                        return move;
+                    }
+                    stage = quiescence ? DONE : FIRST_KILLER;
+                }
+                case FIRST_KILLER -> {
+                    stage = SECOND_KILLER;
+                    if (isRefutation(firstKiller)) {
+                        return firstKiller;
+                    }
+                }
+                case SECOND_KILLER -> {
+                    stage = COUNTER_MOVE;
+                    if (secondKiller != firstKiller && isRefutation(secondKiller)) {
+                        return secondKiller;
+                    }
+                }
+                case COUNTER_MOVE -> {
+                    stage = GENERATE_QUIETS;
+                    if (counterMove != firstKiller && counterMove != secondKiller && isRefutation(counterMove)) {
+                        return counterMove;
+                    }
+                }
+                case GENERATE_QUIETS -> {
+                    count = MoveGenerator.getQuiets(position, side, moves, 0);
+                    index = 0;
+                    for (int i = 0; i < count; i++) {
+                        scores[i] = history.get(side, moves[i]);
+                    }
+                    stage = QUIETS;
+                }
+                case QUIETS -> {
+                    if (index < count) {
+                        int move = pickBest();
+
+                        if (move == hashMove || move == firstKiller
+                                || move == secondKiller || move == counterMove) {
+                            continue;
+                        }
+                        return move;
+                    }
+                    index = 0;
+                    stage = BAD_CAPTURES;
+                }
+                case BAD_CAPTURES -> {
+                    if (index < badCount) {
+                        return badCaptures[index++];
+                    }
+                    stage = DONE;
+                }
+                default -> {
+                    return Move.NONE;
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Validates a killer or countermove, which was stored for another
+     * position and is tried before the quiet moves are generated.</p>
+     */
+    private boolean isRefutation(int move) {
+        return move != Move.NONE
+                && move != hashMove
+                && MoveGenerator.isPseudoLegal(position, side, move, buffer);
+    }
+
+    /**
+     * <p>Scores a capture by its victim first and its attacker second.
+     * Promotions add the value of the new figure.</p>
+     */
+    private int getCaptureScore(int move) {
+        int score = 0;
+
+        if (Move.isCapture(move)) {
+            int victim = position.getPieceAt(Move.getTo(move));
+            int attacker = position.getPieceAt(Move.getFrom(move));
+            Rank captured = victim == Position.EMPTY ? Rank.PAWN : Position.getRank(victim);
+
+            score = captured.getValue() * 16 - Position.getRank(attacker).getValue();
+        }
+        if (Move.isPromotion(move)) {
+            score += Move.getPromotion(move).getValue() * 16;
+        }
+
+        return score;
+    }
+
+    /**
+     * <p>Swaps the highest scored remaining move to the current index.</p>
+     * @return move at the current index
+     */
+    private int pickBest() {
+        int best = index;
+
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+
+        int move = moves[best];
+        int score = scores[best];
+        moves[best] = moves[index];
+        scores[best] = scores[index];
+        moves[index] = move;
+        scores[index++] = score;
+
+        return move;
+    }
+}
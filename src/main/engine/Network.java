@@ -0,0 +1,173 @@
+package main.engine;
+
+import main.models.Rank;
+import main.models.Side;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Quantized weights of an efficiently updatable neural network evaluating
+ * a position from the side to move.
+ * <p>Its 768 inputs are one feature per side, rank and square, seen from
+ * both sides, as black sees the board mirrored with the colours swapped.
+ * Both perspectives share one hidden layer, the accumulator, which holds
+ * the sum of the weight columns of every figure on the board, see
+ * <code>Accumulator</code>. The output layer takes the clipped
+ * accumulator of the side to move followed by that of its opponent.</p>
+ * Weights are read from a little-endian file mapped into memory:
+ * <p>magic <code>int</code>, hidden size <code>int</code>, feature weights
+ * <code>short[768][hidden]</code>, feature biases <code>short[hidden]</code>,
+ * output weights <code>short[2 * hidden]</code>, output bias <code>int</code></p>
+ * Feature weights are quantized by <code>QA</code>, output weights by
+ * <code>QB</code> and the output bias by both.
+ */
+public final class Network {
+    public static final int MAGIC = 0x4E4E5545;
+    public static final int FEATURES = 768;
+    public static final int MAX_HIDDEN = 4096;
+    public static final int QA = 255;
+    public static final int QB = 64;
+    // Centipawns of an output of one
+    public static final int SCALE = 400;
+    // Largest score of the output, below the mate scores of the search
+    // and within the 16 bits a score takes in the EvaluationCache
+    public static final int MAX_SCORE = Search.MATE_BOUND - 1;
+
+    private static final int HEADER_BYTES = 8;
+    private static final int RANKS = Rank.values().length;
+
+    private final int hidden;
+    private final short[] weights;
+    private final short[] biases;
+    private final short[] outputWeights;
+    private final int outputBias;
+
+    //
+    // Constructor
+    //
+    private Network(int hidden, short[] weights, short[] biases, short[] outputWeights, int outputBias) {
+        this.hidden = hidden;
+        this.weights = weights;
+        this.biases = biases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * <p>Maps the weights file into memory and copies the weights to
+     * arrays, whose loops the compiler turns into vector instructions.</p>
+     * @param path weights file
+     * @return network of the weights
+     * @throws IOException if the file cannot be read or is not a network
+     */
+    public static Network load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a network file: " + path);
+            }
+            int hidden = buffer.getInt(4);
+            if (hidden < 1 || hidden > MAX_HIDDEN) {
+                throw new IOException("Hidden size out of range: " + hidden);
+            }
+            long expected = HEADER_BYTES + 2L * (FEATURES * hidden + hidden + 2 * hidden) + 4;
+            if (buffer.capacity() != expected) {
+                throw new IOException("Network file of " + buffer.capacity() + " bytes, expected " + expected);
+            }
+
+            ShortBuffer shorts = buffer.position(HEADER_BYTES).slice().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+            short[] weights = new short[FEATURES * hidden];
+            short[] biases = new short[hidden];
+            short[] outputWeights = new short[2 * hidden];
+            shorts.get(weights).get(biases).get(outputWeights);
+            int outputBias = buffer.getInt((int) expected - 4);
+
+            return new Network(hidden, weights, biases, outputWeights, outputBias);
+        }
+    }
+
+    /**
+     * <p>Creates a network of small random weights, so incremental updates
+     * of an <code>Accumulator</code> can be verified without a weights file.
+     * A board of figures sums to far less than a <code>short</code> holds.</p>
+     * @param hidden size of the hidden layer
+     * @param seed seed of the weights
+     * @return network of random weights
+     */
+    static Network getRandom(int hidden, long seed) {
+        Random random = new Random(seed);
+        short[] weights = new short[FEATURES * hidden];
+        short[] biases = new short[hidden];
+        short[] outputWeights = new short[2 * hidden];
+
+        for (short[] layer : new short[][] {weights, biases, outputWeights}) {
+            for (int i = 0; i < layer.length; i++) {
+                layer[i] = (short) (random.nextInt(201) - 100);
+            }
+        }
+
+        return new Network(hidden, weights, biases, outputWeights, random.nextInt(201) - 100);
+    }
+
+    /**
+     * @param perspective side seeing the board
+     * @param piece piece value, see <code>Position.getPiece</code>
+     * @param square ordinal value of the <code>Coordinate</code>
+     * @return offset of the weight column of the feature
+     */
+    int getOffset(Side perspective, int piece, int square) {
+        int feature = perspective.equals(Side.WHITE)
+                ? piece * 64 + square
+                // Black sees its own figures as white from the other end of the board
+                : (piece + RANKS) % (2 * RANKS) * 64 + (square ^ 56);
+
+        return feature * hidden;
+    }
+
+    /**
+     * <p>Runs the output layer on both accumulators.</p>
+     * @param us accumulator of the side to move
+     * @param them accumulator of its opponent
+     * @return score in centipawns, positive when the side to move is ahead,
+     * clamped to <code>MAX_SCORE</code>
+     */
+    int evaluate(short[] us, short[] them) {
+        // Up to 2 * MAX_HIDDEN products of 255 * 32767 overflow an int
+        long sum = 0;
+
+        for (int i = 0; i < hidden; i++) {
+            sum += Math.min(Math.max(us[i], 0), QA) * outputWeights[i];
+        }
+        for (int i = 0; i < hidden; i++) {
+            sum += Math.min(Math.max(them[i], 0), QA) * outputWeights[hidden + i];
+        }
+
+        long score = (sum + outputBias) * SCALE / (QA * QB);
+
+        return (int) Math.min(Math.max(score, -MAX_SCORE), MAX_SCORE);
+    }
+
+    int getHidden() {
+        return hidden;
+    }
+
+    short[] getWeights() {
+        return weights;
+    }
+
+    short[] getBiases() {
+        return biases;
+    }
+}
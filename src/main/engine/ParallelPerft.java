@@ -0,0 +1,180 @@
+package main.engine;
+
+import main.models.Fen;
+import main.models.Move;
+import main.models.Position;
+import main.models.Snapshot;
+import main.models.movables.MoveGenerator;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft split over a fork/join pool. Every subtree deeper than <code>SPLIT_DEPTH</code>
+ * forks a task per legal move and shallower subtrees are counted sequentially
+ * by a <code>Perft</code> owned by the worker thread. All threads share one
+ * <code>PerftHash</code>, so transpositions are counted once.
+ * <p><code>ParallelPerft &lt;depth&gt; [-threads N] [-hash MB] [fen]</code></p>
+ */
+public class ParallelPerft {
+    private static final int SPLIT_DEPTH = 3;
+    private static final int DEFAULT_HASH = 256;
+
+    private final ForkJoinPool pool;
+    private final PerftHash hash;
+    private final ThreadLocal<Perft> perfts;
+
+    //
+    // Constructor
+    //
+    /**
+     * @param threads number of worker threads
+     * @param hash cache of counts shared by all threads or null
+     */
+    public ParallelPerft(int threads, PerftHash hash) {
+        this.pool = new ForkJoinPool(threads);
+        this.hash = hash;
+        this.perfts = ThreadLocal.withInitial(() -> new Perft(SPLIT_DEPTH, hash));
+    }
+
+    //
+    // Methods
+    //
+    public long perft(Position position, int depth) {
+        return pool.invoke(new PerftTask(new Snapshot(position), depth));
+    }
+
+    /**
+     * <p>Counts leaf nodes below every legal root move in parallel
+     * and prints them in the order of generation.</p>
+     * @param position root position
+     * @param depth plies to search, at least one
+     * @param out stream to print to
+     * @return number of leaf nodes
+     */
+    public long divide(Position position, int depth, PrintStream out) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth out of range: " + depth);
+        }
+
+        List<Integer> moves = new ArrayList<>();
+        List<PerftTask> tasks = getChildren(new Position(position), depth, moves);
+        long nodes = 0;
+
+        tasks.forEach(pool::execute);
+        for (int i = 0; i < tasks.size(); i++) {
+            long n = tasks.get(i).join();
+            out.println(Move.toString(moves.get(i)) + ": " + n);
+            nodes += n;
+        }
+
+        return nodes;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * <p>Creates a task for the position after every legal move.</p>
+     * @param position parent position, restored after making every move
+     * @param depth plies remaining at the parent
+     * @param legalMoves list receiving the move of every task or null
+     * @return tasks counting the subtrees
+     */
+    private List<PerftTask> getChildren(Position position, int depth, List<Integer> legalMoves) {
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = MoveGenerator.getLegalMoves(position, position.getTurn(), moves, 0);
+        List<PerftTask> tasks = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            tasks.add(new PerftTask(new Snapshot(position), depth - 1));
+            if (legalMoves != null) {
+                legalMoves.add(moves[i]);
+            }
+            position.unmakeMove();
+        }
+
+        return tasks;
+    }
+
+    /**
+     * Counts a subtree, forking children above the split depth. Queued tasks
+     * hold a compact snapshot and build the position once they run.
+     */
+    private class PerftTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Snapshot snapshot;
+        private final int depth;
+
+        PerftTask(Snapshot snapshot, int depth) {
+            this.snapshot = snapshot;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            long key = snapshot.getKey();
+            if (hash != null && depth > SPLIT_DEPTH) {
+                long stored = hash.get(key, depth);
+                if (stored >= 0) {
+                    return stored;
+                }
+            }
+
+            Position position = snapshot.toPosition();
+            if (depth <= SPLIT_DEPTH) {
+                return perfts.get().perft(position, depth);
+            }
+
+            long nodes = 0;
+            for (PerftTask task : invokeAll(getChildren(position, depth, null))) {
+                nodes += task.join();
+            }
+
+            if (hash != null) {
+                hash.put(key, depth, nodes);
+            }
+
+            return nodes;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: ParallelPerft <depth> [-threads N] [-hash MB] [fen]");
+            return;
+        }
+
+        int depth = Integer.parseInt(args[0]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        int megabytes = DEFAULT_HASH;
+        List<String> fen = new ArrayList<>();
+
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "-threads" -> threads = Integer.parseInt(args[++i]);
+                case "-hash" -> megabytes = Integer.parseInt(args[++i]);
+                default -> fen.add(args[i]);
+            }
+        }
+
+        Position position = Fen.getPosition(fen.isEmpty() ? Fen.START_POSITION : String.join(" ", fen));
+        ParallelPerft perft = new ParallelPerft(threads, megabytes > 0 ? new PerftHash(megabytes) : null);
+
+        long start = System.nanoTime();
+        long nodes = perft.divide(position, depth, System.out);
+        long time = System.nanoTime() - start;
+        perft.shutdown();
+
+        System.out.println();
+        System.out.println("Nodes: " + nodes);
+        System.out.printf("Time: %d ms, %d nodes/s, %d threads%n",
+                time / 1_000_000, Perft.getNodesPerSecond(nodes, time), threads);
+    }
+}
@@ -0,0 +1,172 @@
+package main.engine;
+
+import main.models.Bitboards;
+import main.models.Position;
+import main.models.Rank;
+import main.models.Side;
+import main.models.movables.Pawn;
+
+/**
+ * Evaluation of the pawns alone in centipawns for white, depending only on
+ * the pawn key of a position, see <code>PawnTable</code>.
+ * <p>Passed pawns earn a bonus growing as they advance. Doubled, isolated
+ * and backward pawns are penalized, the backward ones when no neighbour can
+ * support them and an enemy pawn guards the square in front.</p>
+ * Middlegame and endgame scores are packed in a single <code>int</code>,
+ * see <code>getScore</code>.
+ */
+public final class PawnStructure {
+    // Indexed by row counted from the side, the start row being 1
+    private static final int[] PASSED_MIDDLEGAME = {0, 5, 10, 15, 25, 40, 60, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 20, 35, 60, 100, 150, 0};
+    private static final int DOUBLED_MIDDLEGAME = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDDLEGAME = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+    private static final int BACKWARD_MIDDLEGAME = -8;
+    private static final int BACKWARD_ENDGAME = -10;
+
+    private static final long[] COLUMNS = setColumns();
+    private static final long[] NEIGHBOURS = setNeighbours();
+    // Indexed by side and square
+    private static final long[][] PASSED_MASKS = setMasks(true);
+    private static final long[][] SUPPORT_MASKS = setMasks(false);
+
+    private PawnStructure() {}
+
+    //
+    // Field initializers
+    //
+    private static long[] setColumns() {
+        long[] columns = new long[8];
+
+        for (int column = 0; column < 8; column++) {
+            columns[column] = Bitboards.LEFT_BOUNDARY << column;
+        }
+
+        return columns;
+    }
+
+    private static long[] setNeighbours() {
+        long[] neighbours = new long[8];
+
+        for (int column = 0; column < 8; column++) {
+            neighbours[column] = (column > 0 ? COLUMNS[column - 1] : 0L)
+                    | (column < 7 ? COLUMNS[column + 1] : 0L);
+        }
+
+        return neighbours;
+    }
+
+    /**
+     * <p>Squares of the own and neighbouring columns ahead of a pawn, which
+     * must be free of enemy pawns for a passed pawn. Otherwise squares of
+     * the neighbouring columns level with or behind a pawn, holding the own
+     * pawns which can still support it.</p>
+     * @param passed true for passed pawn masks, false for support masks
+     * @return masks indexed by side and square
+     */
+    private static long[][] setMasks(boolean passed) {
+        long[][] masks = new long[Side.values().length][64];
+
+        for (int square = 0; square < 64; square++) {
+            int row = square / 8;
+            int column = square % 8;
+            long files = passed ? COLUMNS[column] | NEIGHBOURS[column] : NEIGHBOURS[column];
+
+            for (int other = 0; other < 64; other++) {
+                int otherRow = other / 8;
+                // White pawns advance towards row 0
+                boolean white = passed ? otherRow < row : otherRow >= row;
+                boolean black = passed ? otherRow > row : otherRow <= row;
+
+                if (Bitboards.contains(files, other)) {
+                    if (white) {
+                        masks[Side.WHITE.ordinal()][square] |= Bitboards.getBit(other);
+                    }
+                    if (black) {
+                        masks[Side.BLACK.ordinal()][square] |= Bitboards.getBit(other);
+                    }
+                }
+            }
+        }
+
+        return masks;
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * @param position bitboard position
+     * @return packed pawn score of white
+     */
+    public static int evaluate(Position position) {
+        long white = position.getFigures(Side.WHITE, Rank.PAWN);
+        long black = position.getFigures(Side.BLACK, Rank.PAWN);
+
+        return evaluate(Side.WHITE, white, black) - evaluate(Side.BLACK, black, white);
+    }
+
+    /**
+     * @param side side of the pawns
+     * @param own pawns of the side
+     * @param enemy pawns of the opponent
+     * @return packed pawn score of the side
+     */
+    private static int evaluate(Side side, long own, long enemy) {
+        int middlegame = 0;
+        int endgame = 0;
+        int forward = side.equals(Side.WHITE) ? -8 : 8;
+
+        for (int column = 0; column < 8; column++) {
+            int count = Long.bitCount(own & COLUMNS[column]);
+
+            if (count > 1) {
+                middlegame += (count - 1) * DOUBLED_MIDDLEGAME;
+                endgame += (count - 1) * DOUBLED_ENDGAME;
+            }
+        }
+
+        for (long pawns = own; pawns != 0; pawns &= pawns - 1) {
+            int square = Long.numberOfTrailingZeros(pawns);
+            int column = square % 8;
+
+            if ((enemy & PASSED_MASKS[side.ordinal()][square]) == 0) {
+                int row = side.equals(Side.WHITE) ? 7 - square / 8 : square / 8;
+                middlegame += PASSED_MIDDLEGAME[row];
+                endgame += PASSED_ENDGAME[row];
+            }
+
+            if ((own & NEIGHBOURS[column]) == 0) {
+                middlegame += ISOLATED_MIDDLEGAME;
+                endgame += ISOLATED_ENDGAME;
+            } else if ((own & SUPPORT_MASKS[side.ordinal()][square]) == 0
+                    && (Pawn.getAttacks(side, square + forward) & enemy) != 0) {
+                middlegame += BACKWARD_MIDDLEGAME;
+                endgame += BACKWARD_ENDGAME;
+            }
+        }
+
+        return getScore(middlegame, endgame);
+    }
+
+    /**
+     * <p>Packs a middlegame and an endgame score in a single value, which
+     * adds and subtracts like both scores at once.</p>
+     * @param middlegame middlegame score
+     * @param endgame endgame score
+     * @return packed score
+     */
+    public static int getScore(int middlegame, int endgame) {
+        return (middlegame << 16) + endgame;
+    }
+
+    public static int getMiddlegame(int score) {
+        return (score + 0x8000) >> 16;
+    }
+
+    public static int getEndgame(int score) {
+        return (short) score;
+    }
+}
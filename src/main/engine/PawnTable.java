@@ -0,0 +1,91 @@
+package main.engine;
+
+import main.models.Position;
+
+import java.util.Arrays;
+
+/**
+ * Cache of pawn structure scores by pawn key, see <code>PawnStructure</code>.
+ * Pawns move rarely compared with other figures, so most positions of a
+ * search share the pawn structure of one evaluated before.
+ * <p>Every search thread owns its table, so entries are written without
+ * any synchronization. An entry is replaced by any later pawn structure
+ * mapping to the same slot.</p>
+ */
+public class PawnTable {
+    public static final int DEFAULT_ENTRIES = 1 << 14;
+
+    private final long[] keys;
+    private final int[] scores;
+    private final int mask;
+    private long probes;
+    private long hits;
+
+    //
+    // Constructors
+    //
+    public PawnTable() {
+        this(DEFAULT_ENTRIES);
+    }
+
+    /**
+     * @param entries number of entries, rounded down to a power of two
+     */
+    public PawnTable(int entries) {
+        if (entries < 1) {
+            throw new IllegalArgumentException("Table size out of range: " + entries);
+        }
+        int size = Integer.highestOneBit(entries);
+
+        this.keys = new long[size];
+        this.scores = new int[size];
+        this.mask = size - 1;
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * <p>Looks up the pawn score of a position, evaluating and storing
+     * it on a miss. Empty slots hold key 0 and score 0, which is also the
+     * correct entry of a position without pawns.</p>
+     * @param position bitboard position
+     * @return packed pawn score of white, see <code>PawnStructure.getScore</code>
+     */
+    public int probe(Position position) {
+        long key = position.getPawnKey();
+        int index = (int) key & mask;
+
+        probes++;
+        if (keys[index] == key) {
+            hits++;
+            return scores[index];
+        }
+
+        int score = PawnStructure.evaluate(position);
+        keys[index] = key;
+        scores[index] = score;
+
+        return score;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(scores, 0);
+    }
+
+    public long getProbes() {
+        return probes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return share of probes finding their entry from 0 to 1
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+}
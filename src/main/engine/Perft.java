@@ -0,0 +1,381 @@
+package main.engine;
+
+import main.models.Fen;
+import main.models.Move;
+import main.models.PieceSquareTable;
+import main.models.Position;
+import main.models.Side;
+import main.models.Zobrist;
+import main.models.movables.MoveGenerator;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless perft tool counting leaf nodes of the legal move tree.
+ * Known node counts validate the move generator and the elapsed time
+ * measures its throughput.
+ * <p><code>Perft &lt;depth&gt; [fen]</code> prints node counts per root move</p>
+ * <p><code>Perft suite [maxDepth] [file]</code> compares a suite of positions
+ * with their expected counts</p>
+ * <p><code>Perft verify [depth] [-network file] [file]</code> makes every move
+ * of the suite positions and compares the incremental state of the position,
+ * and of an <code>Accumulator</code> with a recomputation from scratch
+ * after every move made and taken back. Without a weights file the
+ * accumulator belongs to a network of random weights.</p>
+ */
+public class Perft {
+    private static final String SUITE_PATH = "src/main/resources/perft/standard.epd";
+    private static final int SUITE_DEPTH = 4;
+    private static final int VERIFY_DEPTH = 3;
+    private static final int VERIFY_HIDDEN = 32;
+    private static final long VERIFY_SEED = 1;
+
+    private final Position position;
+    private final int[][] moves;
+    private final PerftHash hash;
+    // Accumulator kept up to date by the position and one rebuilt by check
+    private Accumulator accumulator;
+    private Accumulator rebuilt;
+
+    //
+    // Constructors
+    //
+    /**
+     * @param maxDepth deepest search, move buffers are allocated once per ply
+     */
+    public Perft(int maxDepth) {
+        this(maxDepth, null);
+    }
+
+    /**
+     * @param maxDepth deepest search, move buffers are allocated once per ply
+     * @param hash cache of counts shared between searches or null
+     */
+    public Perft(int maxDepth, PerftHash hash) {
+        this.hash = hash;
+        this.position = new Position();
+        this.moves = new int[maxDepth + 1][Move.MAX_MOVES];
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * <p>Keeps an accumulator of the network up to date on the working
+     * position while verifying, so <code>verify</code> compares it with a
+     * rebuilt one.</p>
+     * @param network weights of the network or null for none
+     */
+    public void setNetwork(Network network) {
+        this.accumulator = network == null ? null : new Accumulator(network);
+        this.rebuilt = network == null ? null : new Accumulator(network);
+    }
+
+    /**
+     * <p>Counts leaf nodes of the legal move tree.</p>
+     * @param position root position
+     * @param depth plies to search
+     * @return number of leaf nodes
+     */
+    public long perft(Position position, int depth) {
+        setRoot(position, depth);
+
+        return depth == 0 ? 1 : count(depth);
+    }
+
+    /**
+     * <p>Counts leaf nodes below every legal root move and prints them.</p>
+     * @param position root position
+     * @param depth plies to search, at least one
+     * @param out stream to print to
+     * @return number of leaf nodes
+     */
+    public long divide(Position position, int depth, PrintStream out) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth out of range: " + depth);
+        }
+        setRoot(position, depth);
+
+        Side side = this.position.getTurn();
+        int[] buffer = moves[depth];
+        int count = MoveGenerator.getLegalMoves(this.position, side, buffer, 0);
+        long nodes = 0;
+
+        for (int i = 0; i < count; i++) {
+            this.position.makeMove(buffer[i]);
+
+            long n = depth == 1 ? 1 : count(depth - 1);
+            out.println(Move.toString(buffer[i]) + ": " + n);
+            nodes += n;
+            this.position.unmakeMove();
+        }
+
+        return nodes;
+    }
+
+    private void setRoot(Position position, int depth) {
+        if (depth < 0 || depth >= moves.length) {
+            throw new IllegalArgumentException("Depth out of range: " + depth);
+        }
+        this.position.set(position);
+    }
+
+    /**
+     * <p>Counts leaf nodes below the working position.
+     * Every legal move is made and taken back on the same position.</p>
+     * @param depth remaining plies, at least one
+     * @return number of leaf nodes
+     */
+    private long count(int depth) {
+        boolean hashed = hash != null && depth > 1;
+        long key = 0L;
+
+        if (hashed) {
+            key = position.getKey();
+            long stored = hash.get(key, depth);
+            if (stored >= 0) {
+                return stored;
+            }
+        }
+
+        int[] buffer = moves[depth];
+        int count = MoveGenerator.getLegalMoves(position, position.getTurn(), buffer, 0);
+        long nodes = count;
+
+        // Legal moves of the last ply are counted without making them
+        if (depth > 1) {
+            nodes = 0;
+            for (int i = 0; i < count; i++) {
+                position.makeMove(buffer[i]);
+                nodes += count(depth - 1);
+                position.unmakeMove();
+            }
+        }
+
+        if (hashed) {
+            hash.put(key, depth, nodes);
+        }
+
+        return nodes;
+    }
+
+    /**
+     * <p>Walks the legal move tree like <code>perft</code>, but makes every move
+     * including those of the last ply, and checks the incremental state after
+     * every move made and taken back, see <code>check</code>.</p>
+     * @param position root position
+     * @param depth plies to walk
+     * @param out stream to print mismatches to
+     * @return number of checks that found a mismatch
+     */
+    public long verify(Position position, int depth, PrintStream out) {
+        this.position.setListener(accumulator);
+        setRoot(position, depth);
+
+        long failures = check(out) + verify(depth, out);
+
+        // Counting does not pay for the accumulator
+        this.position.setListener(null);
+
+        return failures;
+    }
+
+    private long verify(int depth, PrintStream out) {
+        if (depth == 0) {
+            return 0;
+        }
+        int[] buffer = moves[depth];
+        int count = MoveGenerator.getLegalMoves(position, position.getTurn(), buffer, 0);
+        long failures = 0;
+
+        for (int i = 0; i < count; i++) {
+            position.makeMove(buffer[i]);
+            failures += check(out) + verify(depth - 1, out);
+            position.unmakeMove();
+            failures += check(out);
+        }
+
+        return failures;
+    }
+
+    /**
+     * <p>Compares the Zobrist keys, piece-square scores and game phase kept
+     * by <code>Position.put</code> and <code>remove</code> and the sums of the
+     * accumulator with values computed from the figures on the board.</p>
+     * @param out stream to print a mismatch to
+     * @return 1 when a value differs, otherwise 0
+     */
+    private int check(PrintStream out) {
+        int middlegame = 0;
+        int endgame = 0;
+        int phase = 0;
+
+        if (rebuilt != null) {
+            rebuilt.clear();
+        }
+        for (int square = 0; square < 64; square++) {
+            int piece = position.getPieceAt(square);
+            if (piece != Position.EMPTY) {
+                middlegame += PieceSquareTable.getMiddlegame(piece, square);
+                endgame += PieceSquareTable.getEndgame(piece, square);
+                phase += PieceSquareTable.getPhase(piece);
+                if (rebuilt != null) {
+                    rebuilt.put(piece, square);
+                }
+            }
+        }
+
+        String mismatch = position.getKey() != Zobrist.getKey(position) ? "key"
+                : position.getPawnKey() != Zobrist.getPawnKey(position) ? "pawn key"
+                : position.getMiddlegame() != middlegame ? "middlegame score"
+                : position.getEndgame() != endgame ? "endgame score"
+                : position.getPhase() != phase ? "phase"
+                : accumulator != null && !accumulator.hasSameValues(rebuilt) ? "accumulator"
+                : null;
+
+        if (mismatch == null) {
+            return 0;
+        }
+        out.println("  " + mismatch + " differs in " + Fen.getFen(position));
+
+        return 1;
+    }
+
+    /**
+     * <p>Runs every position of an EPD suite where expected counts
+     * follow the FEN as <code>;D&lt;depth&gt; &lt;nodes&gt;</code>.</p>
+     * @param lines lines of the suite
+     * @param maxDepth deepest count to verify
+     * @param out stream to print to
+     * @return number of mismatching counts
+     */
+    public int runSuite(List<String> lines, int maxDepth, PrintStream out) {
+        int failures = 0;
+        long totalNodes = 0;
+        long totalTime = 0;
+
+        for (String line : lines) {
+            String[] fields = line.split(";");
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+
+            Position position = Fen.getPosition(fields[0]);
+            out.println(fields[0].trim());
+
+            for (int i = 1; i < fields.length; i++) {
+                String[] expected = fields[i].trim().split("\\s+");
+                int depth = Integer.parseInt(expected[0].substring(1));
+                if (depth > maxDepth) {
+                    continue;
+                }
+
+                long start = System.nanoTime();
+                long nodes = perft(position, depth);
+                long time = System.nanoTime() - start;
+                boolean passed = nodes == Long.parseLong(expected[1]);
+
+                totalNodes += nodes;
+                totalTime += time;
+                if (!passed) {
+                    failures++;
+                }
+                out.printf("  D%d %12d %s%n", depth, nodes,
+                        passed ? "OK" : "FAIL, expected " + expected[1]);
+            }
+        }
+
+        out.printf("%d failures, %d nodes, %d nodes/s%n",
+                failures, totalNodes, getNodesPerSecond(totalNodes, totalTime));
+
+        return failures;
+    }
+
+    /**
+     * <p>Verifies the incremental state below every position of an EPD suite.</p>
+     * @param lines lines of the suite, expected counts are ignored
+     * @param depth plies to walk from every position
+     * @param network network whose accumulator is verified
+     * @param out stream to print to
+     * @return number of checks that found a mismatch
+     */
+    public static long runVerify(List<String> lines, int depth, Network network, PrintStream out) {
+        Perft perft = new Perft(depth);
+        long failures = 0;
+
+        perft.setNetwork(network);
+
+        for (String line : lines) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String fen = line.split(";")[0].trim();
+            long found = perft.verify(Fen.getPosition(fen), depth, out);
+
+            out.printf("%-80s %s%n", fen, found == 0 ? "OK" : found + " mismatches");
+            failures += found;
+        }
+        out.printf("%d mismatches%n", failures);
+
+        return failures;
+    }
+
+    public static long getNodesPerSecond(long nodes, long nanos) {
+        return nanos == 0 ? 0 : (long) (nodes * 1e9 / nanos);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: Perft <depth> [fen]");
+            System.out.println("       Perft suite [maxDepth] [file]");
+            System.out.println("       Perft verify [depth] [-network file] [file]");
+            return;
+        }
+
+        if (args[0].equals("suite")) {
+            int maxDepth = args.length > 1 ? Integer.parseInt(args[1]) : SUITE_DEPTH;
+            Path path = Path.of(args.length > 2 ? args[2] : SUITE_PATH);
+            int failures = new Perft(maxDepth).runSuite(Files.readAllLines(path), maxDepth, System.out);
+
+            System.exit(failures == 0 ? 0 : 1);
+        }
+
+        if (args[0].equals("verify")) {
+            Network network = null;
+            List<String> arguments = new ArrayList<>();
+
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals("-network")) {
+                    network = Network.load(Path.of(args[++i]));
+                } else {
+                    arguments.add(args[i]);
+                }
+            }
+            if (network == null) {
+                network = Network.getRandom(VERIFY_HIDDEN, VERIFY_SEED);
+            }
+            int depth = arguments.size() > 0 ? Integer.parseInt(arguments.get(0)) : VERIFY_DEPTH;
+            Path path = Path.of(arguments.size() > 1 ? arguments.get(1) : SUITE_PATH);
+
+            System.exit(runVerify(Files.readAllLines(path), depth, network, System.out) == 0 ? 0 : 1);
+        }
+
+        int depth = Integer.parseInt(args[0]);
+        String fen = args.length > 1
+                ? String.join(" ", List.of(args).subList(1, args.length))
+                : Fen.START_POSITION;
+
+        long start = System.nanoTime();
+        long nodes = new Perft(depth).divide(Fen.getPosition(fen), depth, System.out);
+        long time = System.nanoTime() - start;
+
+        System.out.println();
+        System.out.println("Nodes: " + nodes);
+        System.out.printf("Time: %d ms, %d nodes/s%n", time / 1_000_000, getNodesPerSecond(nodes, time));
+    }
+}
@@ -0,0 +1,63 @@
+package main.engine;
+
+/**
+ * Shared lock-free cache of perft counts by position key and depth.
+ * Every entry is a pair of <code>long</code> values: the packed data and the key
+ * XOR the data. Threads write both without locking, so an entry torn by
+ * concurrent writes fails the XOR check on reading and counts as a miss.
+ */
+public class PerftHash {
+    private static final int ENTRY_BYTES = 16;
+    private static final long DEPTH_MIX = 0x9E3779B97F4A7C15L;
+    // Two longs per entry must fit the length of a single array
+    private static final int MAX_ENTRIES = 1 << 29;
+
+    private final long[] entries;
+    private final int mask;
+
+    /**
+     * @param megabytes size of the table, rounded down to a power of two entries
+     *                  and capped at <code>MAX_ENTRIES</code>, 8 GB
+     */
+    public PerftHash(int megabytes) {
+        long count = Math.max(1L, (long) megabytes * 1024 * 1024 / ENTRY_BYTES);
+        int size = Integer.highestOneBit((int) Math.min(count, MAX_ENTRIES));
+
+        this.entries = new long[size * 2];
+        this.mask = size - 1;
+    }
+
+    /**
+     * @param key position key
+     * @param depth remaining plies
+     * @return stored leaf count or -1 when the entry is missing
+     */
+    public long get(long key, int depth) {
+        int index = getIndex(key, depth);
+        long data = entries[index];
+
+        if ((entries[index + 1] ^ data) == key && (data & 0xFF) == depth) {
+            return data >>> 8;
+        }
+
+        return -1;
+    }
+
+    /**
+     * <p>Stores a leaf count, replacing any previous entry.</p>
+     * @param key position key
+     * @param depth remaining plies
+     * @param nodes leaf count below 2^56
+     */
+    public void put(long key, int depth, long nodes) {
+        int index = getIndex(key, depth);
+        long data = nodes << 8 | depth;
+
+        entries[index] = data;
+        entries[index + 1] = key ^ data;
+    }
+
+    private int getIndex(long key, int depth) {
+        return ((int) ((key ^ depth * DEPTH_MIX) >>> 32) & mask) << 1;
+    }
+}
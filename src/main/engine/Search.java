@@ -0,0 +1,749 @@
+package main.engine;
+
+import main.models.Move;
+import main.models.Position;
+import main.models.Rank;
+import main.models.Side;
+import main.models.movables.MoveGenerator;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Negamax alpha-beta search with iterative deepening. Every iteration
+ * searches one ply deeper than the previous one and tries the best moves
+ * it stored in the table first, so the best move of the last completed
+ * iteration is always ready when the node or time budget runs out.
+ * <p>Iterations start with an aspiration window around the previous score.
+ * Every move after the first is searched with a null window as in principal
+ * variation search, and searched again only when it may be better.</p>
+ * <p>Leaves are resolved by a quiescence search over captures and promotions,
+ * so no exchange is cut off at the horizon. Moves are ordered by a
+ * <code>MovePicker</code> per ply. Null-move pruning, late move reductions,
+ * futility pruning and razoring skip or shorten subtrees away from the
+ * principal variation, see <code>SearchOptions</code>.</p>
+ * <p>Results of searched nodes are kept in a <code>TranspositionTable</code>
+ * which may be shared with other searches. Helper searches of a Lazy SMP
+ * <code>Engine</code> skip some iterations, so threads sharing the table
+ * work on different depths.</p>
+ */
+public class Search {
+    public static final int MAX_DEPTH = 64;
+    public static final int INFINITY = 30000;
+    public static final int MATE = 29000;
+    public static final int MATE_BOUND = MATE - MAX_DEPTH;
+    public static final int DRAW = 0;
+
+    // Nodes between reading the clock
+    private static final int CHECK_INTERVAL = 1023;
+
+    // Selective search
+    private static final int NULL_MOVE_DEPTH = 3;
+    private static final int VERIFICATION_DEPTH = 6;
+    private static final int FUTILITY_DEPTH = 3;
+    private static final int FUTILITY_MARGIN = 150;
+    private static final int RAZORING_DEPTH = 2;
+    private static final int RAZORING_MARGIN = 450;
+    private static final int RAZORING_DEPTH_MARGIN = 250;
+    private static final int REDUCTION_MOVES = 3;
+    private static final int[][] REDUCTIONS = setReductions();
+
+    // Aspiration windows
+    private static final int ASPIRATION_DEPTH = 5;
+    private static final int ASPIRATION_WINDOW = 25;
+
+    // Iterations skipped by helper searches, indexed by helper
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    private final TranspositionTable table;
+    private final SearchOptions options;
+    private final int id;
+    private final Position position;
+    private final History history;
+    private final PawnTable pawns;
+    private final EvaluationCache evaluations;
+    private Accumulator accumulator;
+    private final MovePicker[] pickers;
+    private final int[][] killers;
+    private final int[][] quiets;
+    private final int[] played;
+    private final int[] buffer;
+    private final int[][] pv;
+    private final int[] pvLength;
+
+    private int nullMovePly;
+    private long nodes;
+    // Copy of nodes published every CHECK_INTERVAL nodes and after every
+    // iteration, so other threads read progress without a fence per node
+    private volatile long publishedNodes;
+    private long maxNodes;
+    private long deadline;
+    private boolean searched;
+    private boolean aborted;
+    private volatile boolean stopped;
+
+    //
+    // Constructors
+    //
+    public Search() {
+        this(new TranspositionTable(TranspositionTable.DEFAULT_SIZE));
+    }
+
+    /**
+     * @param table cache of search results, may be shared between searches
+     */
+    public Search(TranspositionTable table) {
+        this(table, new SearchOptions(), 0);
+    }
+
+    /**
+     * @param table cache of search results, may be shared between searches
+     * @param options switches of the selective search, may be shared between searches
+     * @param id zero for the main search, a positive number for helper searches
+     */
+    public Search(TranspositionTable table, SearchOptions options, int id) {
+        this(table, options, id, new EvaluationCache(EvaluationCache.DEFAULT_SIZE));
+    }
+
+    /**
+     * @param table cache of search results, may be shared between searches
+     * @param options switches of the selective search, may be shared between searches
+     * @param id zero for the main search, a positive number for helper searches
+     * @param evaluations cache of static evaluations, may be shared between searches
+     */
+    public Search(TranspositionTable table, SearchOptions options, int id, EvaluationCache evaluations) {
+        this.table = table;
+        this.evaluations = evaluations;
+        this.options = options;
+        this.id = id;
+        this.position = new Position();
+        this.history = new History();
+        this.pawns = new PawnTable();
+        this.pickers = new MovePicker[MAX_DEPTH + 1];
+        this.killers = new int[MAX_DEPTH + 1][2];
+        this.quiets = new int[MAX_DEPTH + 1][Move.MAX_MOVES];
+        this.played = new int[MAX_DEPTH + 1];
+        this.buffer = new int[Move.MAX_MOVES];
+        this.pv = new int[MAX_DEPTH + 1][MAX_DEPTH + 1];
+        this.pvLength = new int[MAX_DEPTH + 1];
+
+        for (int i = 0; i < pickers.length; i++) {
+            pickers[i] = new MovePicker(position, history);
+        }
+    }
+
+    //
+    // Field initializers
+    //
+    /**
+     * <p>Reductions of late moves grow with the logarithm of both
+     * the remaining depth and the number of moves searched before.</p>
+     * @return plies to reduce indexed by depth and move number
+     */
+    private static int[][] setReductions() {
+        int[][] reductions = new int[MAX_DEPTH + 1][64];
+
+        for (int depth = 1; depth < reductions.length; depth++) {
+            for (int moves = 1; moves < reductions[depth].length; moves++) {
+                reductions[depth][moves] = (int) (0.75 + Math.log(depth) * Math.log(moves) / 2.25);
+            }
+        }
+
+        return reductions;
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * <p>Searches the position until a limit is reached or the search is stopped.
+     * The first iteration always completes, so a legal move is returned
+     * whenever one exists.</p>
+     * @param root position to search, not modified
+     * @param limits budget of the search
+     * @param listener receives the result of every completed iteration or null
+     * @return result of the last completed iteration
+     */
+    public SearchResult search(Position root, SearchLimits limits, Consumer<SearchResult> listener) {
+        long start = System.nanoTime();
+        int maxDepth = limits.getDepth() == 0 ? MAX_DEPTH : Math.min(limits.getDepth(), MAX_DEPTH);
+        SearchResult result = new SearchResult(DRAW, 0, new int[0], 0, 0);
+
+        position.set(root);
+        history.age();
+        for (int[] moves : killers) {
+            Arrays.fill(moves, Move.NONE);
+        }
+        nullMovePly = 0;
+        nodes = 0;
+        publishedNodes = 0;
+        maxNodes = limits.getNodes() == 0 ? Long.MAX_VALUE : limits.getNodes();
+        deadline = limits.getTime() == 0 ? Long.MAX_VALUE : start + limits.getTime() * 1_000_000;
+        searched = false;
+        aborted = false;
+        if (id == 0) {
+            table.newSearch();
+        }
+
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            if (isSkipped(depth)) {
+                continue;
+            }
+            int score = aspirate(depth, result.getScore());
+            publishedNodes = nodes;
+            if (aborted) {
+                break;
+            }
+
+            int[] pv = getPv();
+            result = new SearchResult(score, depth, pv, nodes, System.nanoTime() - start);
+            searched = true;
+            if (listener != null) {
+                listener.accept(result);
+            }
+
+            // No deeper iteration changes a forced mate found within the depth
+            if (pv.length == 0 || (result.isMate() && MATE - Math.abs(score) <= depth)) {
+                break;
+            }
+        }
+        stopped = false;
+
+        return result;
+    }
+
+    /**
+     * <p>Searches the root with a narrow window around the score of the previous
+     * iteration. A score outside of the window widens it on that side and the
+     * root is searched again.</p>
+     * @param depth depth of the iteration
+     * @param previous score of the previous iteration
+     * @return score of the root
+     */
+    private int aspirate(int depth, int previous) {
+        if (depth < ASPIRATION_DEPTH || Math.abs(previous) >= MATE_BOUND) {
+            return negamax(depth, 0, -INFINITY, INFINITY);
+        }
+
+        int delta = ASPIRATION_WINDOW;
+        int alpha = Math.max(previous - delta, -INFINITY);
+        int beta = Math.min(previous + delta, INFINITY);
+
+        while (true) {
+            int score = negamax(depth, 0, alpha, beta);
+
+            if (aborted) {
+                return score;
+            }
+            if (score <= alpha) {
+                beta = (alpha + beta) / 2;
+                alpha = Math.max(score - delta, -INFINITY);
+            } else if (score >= beta) {
+                beta = Math.min(score + delta, INFINITY);
+            } else {
+                return score;
+            }
+            delta += delta / 2;
+        }
+    }
+
+    private boolean isSkipped(int depth) {
+        if (id == 0 || !searched) {
+            return false;
+        }
+        int helper = (id - 1) % SKIP_SIZE.length;
+
+        return (depth + SKIP_PHASE[helper]) / SKIP_SIZE[helper] % 2 != 0;
+    }
+
+    /**
+     * <p>Stops a running search from another thread. The result
+     * of the last completed iteration is returned. A search stopped
+     * before it started ends after its first iteration.</p>
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * <p>Drops a stop request that arrived after the last search had
+     * already ended, so it does not cut the next search short.</p>
+     */
+    public void clearStop() {
+        stopped = false;
+    }
+
+    /**
+     * <p>Resets the node counter before the search is started on another
+     * thread, so progress read in the meantime does not count the nodes
+     * of the previous search.</p>
+     */
+    public void clearNodes() {
+        publishedNodes = 0;
+    }
+
+    /**
+     * @return nodes searched by the current or last search, counted up
+     * to the last multiple of <code>CHECK_INTERVAL + 1</code> while it runs
+     */
+    public long getNodes() {
+        return publishedNodes;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * <p>Evaluates positions by a neural network instead of the
+     * handcrafted evaluation. Cached evaluations are kept.</p>
+     * @param network weights of the network or null for the handcrafted evaluation
+     */
+    public void setNetwork(Network network) {
+        this.accumulator = network == null ? null : new Accumulator(network);
+        position.setListener(accumulator);
+    }
+
+    public EvaluationCache getEvaluationCache() {
+        return evaluations;
+    }
+
+    public PawnTable getPawnTable() {
+        return pawns;
+    }
+
+    /**
+     * <p>Searches a node with a fail-soft alpha-beta window.</p>
+     * @param depth remaining plies
+     * @param ply distance from the root
+     * @param alpha lower bound of the window
+     * @param beta upper bound of the window
+     * @return score from the side to move
+     */
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = 0;
+        if (isAborted()) {
+            return DRAW;
+        }
+
+        if (ply > 0 && (position.getHalfMoves() >= 100 || position.isRepetition())) {
+            return DRAW;
+        }
+        if (depth <= 0 || ply == MAX_DEPTH) {
+            return quiescence(ply, alpha, beta);
+        }
+
+        long key = position.getKey();
+        long entry = table.probe(key);
+        int hashMove = Move.NONE;
+
+        if (entry != 0) {
+            hashMove = TranspositionTable.getMove(entry);
+            if (ply > 0 && TranspositionTable.getDepth(entry) >= depth) {
+                int score = TranspositionTable.fromTable(TranspositionTable.getScore(entry), ply);
+
+                switch (TranspositionTable.getBound(entry)) {
+                    case TranspositionTable.EXACT -> {
+                        return score;
+                    }
+                    case TranspositionTable.LOWER -> {
+                        if (score >= beta) {
+                            return score;
+                        }
+                    }
+                    case TranspositionTable.UPPER -> {
+                        if (score <= alpha) {
+                            return score;
+                        }
+                    }
+                }
+            }
+        }
+
+        Side side = position.getTurn();
+        boolean check = MoveGenerator.isCheck(position, side);
+        boolean pvNode = beta - alpha > 1;
+        int eval = check ? -INFINITY : evaluate();
+
+        if (!pvNode && !check && ply > 0) {
+            if (options.isRazoring() && depth <= RAZORING_DEPTH && eval + RAZORING_MARGIN + RAZORING_DEPTH_MARGIN * depth * depth <= alpha) {
+                int score = quiescence(ply, alpha, alpha + 1);
+                if (score <= alpha) {
+                    return score;
+                }
+            }
+
+            if (options.isNullMove() && depth >= NULL_MOVE_DEPTH && eval >= beta
+                    && ply >= nullMovePly && played[ply - 1] != Move.NONE && hasPieces(side)) {
+                int score = searchNullMove(depth, ply, beta);
+                if (aborted) {
+                    return DRAW;
+                }
+                if (score >= beta) {
+                    return score;
+                }
+            }
+        }
+
+        // Quiet moves near the leaves cannot raise a static evaluation far below alpha
+        boolean futile = options.isFutility() && !pvNode && !check
+                && depth <= FUTILITY_DEPTH && eval + FUTILITY_MARGIN * depth <= alpha;
+
+        MovePicker picker = pickers[ply];
+        int originalAlpha = alpha;
+        int legal = 0;
+        int quietCount = 0;
+        int best = -INFINITY;
+        int bestMove = Move.NONE;
+        int move;
+
+        picker.init(hashMove, killers[ply][0], killers[ply][1], getCounterMove(ply));
+
+        while ((move = picker.next()) != Move.NONE) {
+            position.makeMove(move);
+            if (MoveGenerator.isCheck(position, side)) {
+                position.unmakeMove();
+                continue;
+            }
+            boolean quiet = isQuiet(move) && !MoveGenerator.isCheck(position, side.getOpposite());
+
+            if (futile && legal > 0 && quiet) {
+                position.unmakeMove();
+                continue;
+            }
+            legal++;
+            played[ply] = move;
+
+            int score;
+            int reduction = 0;
+
+            if (options.isLateMoveReductions() && quiet && !check
+                    && depth >= 3 && legal > REDUCTION_MOVES) {
+                reduction = REDUCTIONS[depth][Math.min(legal, 63)] - history.get(side, move) / (History.MAX_SCORE / 2);
+                if (pvNode || move == killers[ply][0] || move == killers[ply][1]) {
+                    reduction--;
+                }
+                reduction = Math.max(0, Math.min(reduction, depth - 2));
+            }
+            if (legal == 1) {
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                // Later moves only have to prove they are not better than alpha
+                score = -negamax(depth - 1 - reduction, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && reduction > 0 && !aborted) {
+                    score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha);
+                }
+                if (score > alpha && score < beta && !aborted) {
+                    score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+                }
+            }
+            position.unmakeMove();
+
+            if (aborted) {
+                return DRAW;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    setPv(ply, move);
+                    if (alpha >= beta) {
+                        if (isQuiet(move)) {
+                            setRefutation(ply, depth, move, quietCount);
+                        }
+                        break;
+                    }
+                }
+            }
+            if (isQuiet(move)) {
+                quiets[ply][quietCount++] = move;
+            }
+        }
+
+        if (legal == 0) {
+            return check ? -MATE + ply : DRAW;
+        }
+
+        int bound = best >= beta
+                ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bound == TranspositionTable.UPPER ? Move.NONE : bestMove,
+                TranspositionTable.toTable(best, ply), depth, bound);
+
+        return best;
+    }
+
+    /**
+     * <p>Passes the turn and searches the opponent with reduced depth. If the node
+     * still fails high, a move would too. Deep nodes verify the cutoff by a reduced
+     * search without null moves close to the node, which exposes zugzwang.</p>
+     * @param depth remaining plies
+     * @param ply distance from the root
+     * @param beta upper bound of the window
+     * @return score of the null move, at least beta when the node can be pruned
+     */
+    private int searchNullMove(int depth, int ply, int beta) {
+        int reduction = 3 + depth / 6;
+
+        played[ply] = Move.NONE;
+        position.makeNullMove();
+        int score = -negamax(depth - 1 - reduction, ply + 1, -beta, -beta + 1);
+        position.unmakeNullMove();
+
+        if (score < beta || aborted) {
+            return score;
+        }
+        if (score >= MATE_BOUND) {
+            score = beta;   // Mates without a move are not proven
+        }
+        if (depth < VERIFICATION_DEPTH || nullMovePly > 0) {
+            return score;
+        }
+
+        nullMovePly = ply + 3 * (depth - reduction) / 4;
+        int verified = negamax(depth - reduction, ply, beta - 1, beta);
+        nullMovePly = 0;
+
+        return verified >= beta ? score : verified;
+    }
+
+    /**
+     * <p>Evaluates the working position, looking it up in the evaluation
+     * cache first.</p>
+     * @return static evaluation from the side to move
+     */
+    private int evaluate() {
+        long key = position.getKey();
+        int score = evaluations.probe(key);
+
+        if (score == EvaluationCache.NONE) {
+            score = accumulator != null
+                    ? accumulator.evaluate(position.getTurn())
+                    : Evaluation.evaluate(position, pawns);
+            evaluations.store(key, score);
+        }
+
+        return score;
+    }
+
+    /**
+     * @return true if the side has a figure other than the king and pawns
+     */
+    private boolean hasPieces(Side side) {
+        return (position.getSide(side)
+                & ~position.getFigures(side, Rank.KING)
+                & ~position.getFigures(side, Rank.PAWN)) != 0;
+    }
+
+    /**
+     * <p>Searches captures and promotions until the position is quiet. The side
+     * to move may stand pat on the static evaluation, except in check where every
+     * evasion is searched. Captures losing material by static exchange are skipped
+     * by the <code>MovePicker</code>.</p>
+     * @param ply distance from the root
+     * @param alpha lower bound of the window
+     * @param beta upper bound of the window
+     * @return score from the side to move
+     */
+    private int quiescence(int ply, int alpha, int beta) {
+        pvLength[ply] = 0;
+        if (isAborted()) {
+            return DRAW;
+        }
+        if (ply == MAX_DEPTH) {
+            return evaluate();
+        }
+
+        Side side = position.getTurn();
+        boolean check = MoveGenerator.isCheck(position, side);
+        int best = -INFINITY;
+
+        if (!check) {
+            best = evaluate();
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        }
+
+        MovePicker picker = pickers[ply];
+        int legal = 0;
+        int move;
+
+        if (check) {
+            picker.init(Move.NONE, killers[ply][0], killers[ply][1], Move.NONE);
+        } else {
+            picker.initQuiescence();
+        }
+
+        while ((move = picker.next()) != Move.NONE) {
+            position.makeMove(move);
+            if (MoveGenerator.isCheck(position, side)) {
+                position.unmakeMove();
+                continue;
+            }
+            legal++;
+
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            position.unmakeMove();
+
+            if (aborted) {
+                return DRAW;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    setPv(ply, move);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (check && legal == 0) {
+            return -MATE + ply;
+        }
+
+        return best;
+    }
+
+    /**
+     * <p>Counts the node and checks the budget. Limits apply only after
+     * the first iteration completed.</p>
+     * @return true when the search must unwind
+     */
+    private boolean isAborted() {
+        boolean checked = (++nodes & CHECK_INTERVAL) == 0;
+
+        if (checked) {
+            publishedNodes = nodes;
+        }
+        if (searched && !aborted) {
+            aborted = stopped
+                    || nodes >= maxNodes
+                    || (checked && System.nanoTime() >= deadline);
+        }
+
+        return aborted;
+    }
+
+    private static boolean isQuiet(int move) {
+        return !Move.isCapture(move) && !Move.isPromotion(move);
+    }
+
+    /**
+     * @param ply distance from the root
+     * @return refutation of the move leading to the ply or <code>Move.NONE</code>
+     */
+    private int getCounterMove(int ply) {
+        if (ply == 0 || played[ply - 1] == Move.NONE) {
+            return Move.NONE;
+        }
+        int to = Move.getTo(played[ply - 1]);
+
+        return history.getCounterMove(position.getPieceAt(to), to);
+    }
+
+    /**
+     * <p>Records a quiet move causing a cutoff as killer and countermove, rewards
+     * its history and penalizes the quiet moves searched before it.</p>
+     * @param ply distance from the root
+     * @param depth remaining plies
+     * @param move quiet move causing the cutoff
+     * @param quietCount number of quiet moves searched before it
+     */
+    private void setRefutation(int ply, int depth, int move, int quietCount) {
+        Side side = position.getTurn();
+        int bonus = History.getBonus(depth);
+
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        if (ply > 0 && played[ply - 1] != Move.NONE) {
+            int to = Move.getTo(played[ply - 1]);
+            history.setCounterMove(position.getPieceAt(to), to, move);
+        }
+
+        history.update(side, move, bonus);
+        for (int i = 0; i < quietCount; i++) {
+            history.update(side, quiets[ply][i], -bonus);
+        }
+    }
+
+    /**
+     * <p>Copies the principal variation of the root, extended with moves
+     * of the transposition table where a stored result cut it short.</p>
+     * @return principal variation
+     */
+    private int[] getPv() {
+        int[] line = Arrays.copyOf(pv[0], MAX_DEPTH);
+        int length = pvLength[0];
+
+        for (int i = 0; i < length; i++) {
+            position.makeMove(line[i]);
+        }
+        while (length < MAX_DEPTH && !position.isRepetition()) {
+            long entry = table.probe(position.getKey());
+            int move = entry == 0 ? Move.NONE : TranspositionTable.getMove(entry);
+
+            if (move == Move.NONE || !isLegal(move)) {
+                break;
+            }
+            position.makeMove(move);
+            line[length++] = move;
+        }
+        for (int i = 0; i < length; i++) {
+            position.unmakeMove();
+        }
+
+        return Arrays.copyOf(line, length);
+    }
+
+    /**
+     * <p>Validates a move read from the shared table, which may belong
+     * to another position with the same index.</p>
+     * @param move packed move
+     * @return true if the move is legal in the working position
+     */
+    private boolean isLegal(int move) {
+        Side side = position.getTurn();
+        int count = MoveGenerator.getMoves(position, side, buffer, 0);
+
+        for (int i = 0; i < count; i++) {
+            if (buffer[i] == move) {
+                position.makeMove(move);
+                boolean legal = !MoveGenerator.isCheck(position, side);
+                position.unmakeMove();
+
+                return legal;
+            }
+        }
+
+        return false;
+    }
+
+    private void setPv(int ply, int move) {
+        pv[ply][0] = move;
+        System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+        pvLength[ply] = pvLength[ply + 1] + 1;
+    }
+
+    /**
+     * @param result result of an iteration
+     * @return line in the form of the UCI <code>info</code> command
+     */
+    public static String getInfo(SearchResult result) {
+        String score = result.isMate()
+                ? "mate " + result.getMateMoves()
+                : "cp " + result.getScore();
+
+        return String.format("info depth %d score %s nodes %d nps %d time %d pv %s",
+                result.getDepth(), score, result.getNodes(), result.getNodesPerSecond(),
+                result.getNanos() / 1_000_000, result.getPvString());
+    }
+}
@@ -0,0 +1,43 @@
+package main.engine;
+
+/**
+ * Budget of a search. A limit of zero is not applied, so a search
+ * without any limit runs until it is stopped.
+ */
+public class SearchLimits {
+    private final int depth;
+    private final long nodes;
+    private final long time;
+
+    //
+    // Constructor
+    //
+    /**
+     * @param depth deepest iteration in plies or zero
+     * @param nodes number of nodes to search or zero
+     * @param time milliseconds to search or zero
+     */
+    public SearchLimits(int depth, long nodes, long time) {
+        if (depth < 0 || nodes < 0 || time < 0) {
+            throw new IllegalArgumentException("Negative search limit");
+        }
+        this.depth = depth;
+        this.nodes = nodes;
+        this.time = time;
+    }
+
+    //
+    // Getters
+    //
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getTime() {
+        return time;
+    }
+}
@@ -0,0 +1,74 @@
+package main.engine;
+
+/**
+ * Switches of the selective search techniques, all enabled by default.
+ * Each one can be turned off on its own to measure what it is worth.
+ * Options must not be changed while a search is running.
+ */
+public class SearchOptions {
+    private boolean nullMove = true;
+    private boolean lateMoveReductions = true;
+    private boolean futility = true;
+    private boolean razoring = true;
+
+    //
+    // Methods
+    //
+    /**
+     * <p>Copies every switch of other options.</p>
+     * @param options options to copy
+     */
+    public void set(SearchOptions options) {
+        this.nullMove = options.nullMove;
+        this.lateMoveReductions = options.lateMoveReductions;
+        this.futility = options.futility;
+        this.razoring = options.razoring;
+    }
+
+    //
+    // Getters and Setters
+    //
+    public boolean isNullMove() {
+        return nullMove;
+    }
+
+    /**
+     * @param nullMove true to prune nodes where passing the turn still fails high
+     */
+    public void setNullMove(boolean nullMove) {
+        this.nullMove = nullMove;
+    }
+
+    public boolean isLateMoveReductions() {
+        return lateMoveReductions;
+    }
+
+    /**
+     * @param lateMoveReductions true to search late quiet moves with reduced depth
+     */
+    public void setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    public boolean isFutility() {
+        return futility;
+    }
+
+    /**
+     * @param futility true to skip quiet moves near the leaves which cannot raise alpha
+     */
+    public void setFutility(boolean futility) {
+        this.futility = futility;
+    }
+
+    public boolean isRazoring() {
+        return razoring;
+    }
+
+    /**
+     * @param razoring true to drop into quiescence near the leaves far below alpha
+     */
+    public void setRazoring(boolean razoring) {
+        this.razoring = razoring;
+    }
+}
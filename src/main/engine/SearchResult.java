@@ -0,0 +1,95 @@
+package main.engine;
+
+import main.models.Move;
+
+/**
+ * Outcome of a completed iteration of the search: the best move,
+ * its score and the principal variation starting with it.
+ */
+public class SearchResult {
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final int[] pv;
+    private final long nodes;
+    private final long nanos;
+
+    //
+    // Constructor
+    //
+    /**
+     * @param score score in centipawns from the side to move
+     * @param depth depth of the iteration in plies
+     * @param pv principal variation of packed moves, not copied
+     * @param nodes nodes searched since the start of the search
+     * @param nanos time since the start of the search
+     */
+    public SearchResult(int score, int depth, int[] pv, long nodes, long nanos) {
+        this.bestMove = pv.length > 0 ? pv[0] : Move.NONE;
+        this.score = score;
+        this.depth = depth;
+        this.pv = pv;
+        this.nodes = nodes;
+        this.nanos = nanos;
+    }
+
+    //
+    // Getters
+    //
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int[] getPv() {
+        return pv.clone();
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public long getNodesPerSecond() {
+        return Perft.getNodesPerSecond(nodes, nanos);
+    }
+
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE_BOUND;
+    }
+
+    /**
+     * @return moves to mate, negative when the side to move gets mated
+     */
+    public int getMateMoves() {
+        int plies = Search.MATE - Math.abs(score);
+
+        return score > 0 ? (plies + 1) / 2 : -(plies + 1) / 2;
+    }
+
+    /**
+     * @return principal variation in coordinate notation separated by spaces
+     */
+    public String getPvString() {
+        StringBuilder builder = new StringBuilder();
+
+        for (int move : pv) {
+            if (builder.length() > 0) {
+                builder.append(' ');
+            }
+            builder.append(Move.toString(move));
+        }
+
+        return builder.toString();
+    }
+}
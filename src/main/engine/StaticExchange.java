@@ -0,0 +1,117 @@
+package main.engine;
+
+import main.models.Move;
+import main.models.Position;
+import main.models.Rank;
+import main.models.Side;
+import main.models.movables.Bishop;
+import main.models.movables.MoveGenerator;
+import main.models.movables.Rook;
+
+/**
+ * Static exchange evaluation of a capture. Both sides recapture on the
+ * destination with their least valuable attacker, and sliders behind a
+ * removed attacker join the exchange. Figures are worth their
+ * <code>Rank.getValue()</code> and pins are not considered.
+ * The evaluation works on bitboards only and never allocates.
+ */
+public final class StaticExchange {
+    // Attackers in the order they recapture
+    private static final Rank[] ORDER = {Rank.PAWN, Rank.KNIGHT, Rank.BISHOP, Rank.ROOK, Rank.QUEEN, Rank.KING};
+
+    private StaticExchange() {}
+
+    /**
+     * <p>Evaluates if the exchange started by the move gains at least the threshold,
+     * when either side may stop recapturing whenever it stands better.</p>
+     * @param position bitboard position before the move
+     * @param move packed move, see <code>Move</code>
+     * @param threshold gain in centipawns
+     * @return true if the exchange gains at least the threshold
+     */
+    public static boolean isAtLeast(Position position, int move, int threshold) {
+        if ((Move.getFlags(move) & Move.CASTLE) != 0) {
+            return threshold <= 0;
+        }
+
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        int victim = position.getPieceAt(to);
+
+        // Gain when the opponent does not recapture
+        int swap = (victim == Position.EMPTY ? getCapturedValue(move) : getValue(Position.getRank(victim)))
+                - threshold;
+        if (swap < 0) {
+            return false;
+        }
+
+        // Loss of the moving figure when the opponent recaptures and we stop
+        swap = getValue(Position.getRank(position.getPieceAt(from))) - swap;
+        if (swap <= 0) {
+            return true;
+        }
+
+        long occupied = position.getOccupied() ^ (1L << from) ^ (1L << to);
+        if ((Move.getFlags(move) & Move.EN_PASSANT) != 0) {
+            occupied ^= 1L << (to + (from < to ? -8 : 8));
+        }
+
+        long attackers = MoveGenerator.getAttackers(position, to, Side.WHITE, occupied)
+                | MoveGenerator.getAttackers(position, to, Side.BLACK, occupied);
+        long diagonals = position.getFigures(Side.WHITE, Rank.BISHOP) | position.getFigures(Side.BLACK, Rank.BISHOP)
+                | position.getFigures(Side.WHITE, Rank.QUEEN) | position.getFigures(Side.BLACK, Rank.QUEEN);
+        long lines = position.getFigures(Side.WHITE, Rank.ROOK) | position.getFigures(Side.BLACK, Rank.ROOK)
+                | position.getFigures(Side.WHITE, Rank.QUEEN) | position.getFigures(Side.BLACK, Rank.QUEEN);
+        Side side = Position.getSide(position.getPieceAt(from));
+        boolean result = true;
+
+        while (true) {
+            side = side.getOpposite();
+            attackers &= occupied;
+
+            long own = attackers & position.getSide(side);
+            if (own == 0) {
+                break;
+            }
+            result = !result;
+
+            Rank rank = null;
+            long attacker = 0;
+            for (Rank candidate : ORDER) {
+                attacker = own & position.getFigures(side, candidate);
+                if (attacker != 0) {
+                    rank = candidate;
+                    break;
+                }
+            }
+
+            // The king may only recapture when nothing defends the square
+            if (Rank.KING.equals(rank)) {
+                return (attackers & ~position.getSide(side)) != 0 ? !result : result;
+            }
+
+            swap = getValue(rank) - swap;
+            if (swap < (result ? 1 : 0)) {
+                break;
+            }
+
+            occupied ^= attacker & -attacker;
+            if (Rank.PAWN.equals(rank) || Rank.BISHOP.equals(rank) || Rank.QUEEN.equals(rank)) {
+                attackers |= Bishop.getAttacks(to, occupied) & diagonals;
+            }
+            if (Rank.ROOK.equals(rank) || Rank.QUEEN.equals(rank)) {
+                attackers |= Rook.getAttacks(to, occupied) & lines;
+            }
+        }
+
+        return result;
+    }
+
+    private static int getCapturedValue(int move) {
+        return (Move.getFlags(move) & Move.EN_PASSANT) != 0 ? getValue(Rank.PAWN) : 0;
+    }
+
+    private static int getValue(Rank rank) {
+        return Evaluation.getValue(rank);
+    }
+}
@@ -0,0 +1,283 @@
+package main.engine;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
+
+/**
+ * Fixed-size cache of search results shared by every search thread.
+ * Entries are pairs of <code>long</code> values, the packed data and the key
+ * XOR the data, written without locking. An entry torn by concurrent writes
+ * fails the XOR check on probing and counts as a miss.
+ * <p>Data bits 0-19 best move, bits 20-35 score, bits 36-43 depth,
+ * bits 44-45 bound, bits 46-53 age of the search that stored it</p>
+ * Entries are grouped in buckets of four sharing a cache line. A store
+ * replaces the entry of the same key, otherwise the shallowest entry,
+ * where entries of older searches count as shallower.
+ * <p>The table lives on the heap or, for sizes of many gigabytes, in direct
+ * memory outside of it.</p>
+ */
+public class TranspositionTable {
+    public static final int DEFAULT_SIZE = 16;
+    // Largest sizes in megabytes, an array or direct memory of 2^27 and 2^30 buckets
+    public static final int MAX_HEAP_SIZE = 8192;
+    public static final int MAX_DIRECT_SIZE = 65536;
+
+    // Bounds of the stored score
+    public static final int UPPER = 1;
+    public static final int LOWER = 2;
+    public static final int EXACT = 3;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_LONGS = BUCKET_ENTRIES * 2;
+    private static final int AGE_MASK = 0xFF;
+    private static final int FILL_SAMPLE = 1000;
+    private static final long CLEAR_BLOCK = 1 << 20;
+
+    private final LongStorage entries;
+    private final long mask;
+    private final int megabytes;
+    private final boolean offHeap;
+    private final LongAdder probes;
+    private final LongAdder hits;
+
+    private volatile int age;
+
+    //
+    // Constructors
+    //
+    /**
+     * @param megabytes size of the table on the heap, rounded down to a power of two buckets
+     * @throws IllegalArgumentException when the size is below 1 or above <code>MAX_HEAP_SIZE</code>
+     */
+    public TranspositionTable(int megabytes) {
+        this(megabytes, false);
+    }
+
+    /**
+     * @param megabytes size of the table, rounded down to a power of two buckets
+     * @param offHeap true to allocate the table in direct memory
+     * @throws IllegalArgumentException when the size is below 1 or above
+     *         <code>MAX_HEAP_SIZE</code> on the heap or <code>MAX_DIRECT_SIZE</code> off it
+     */
+    public TranspositionTable(int megabytes, boolean offHeap) {
+        if (megabytes < 1 || megabytes > (offHeap ? MAX_DIRECT_SIZE : MAX_HEAP_SIZE)) {
+            throw new IllegalArgumentException("Table size out of range: " + megabytes);
+        }
+        long count = (long) megabytes * 1024 * 1024 / (ENTRY_BYTES * BUCKET_ENTRIES);
+        long buckets = Long.highestOneBit(count);
+
+        this.entries = offHeap
+                ? new DirectStorage(buckets * BUCKET_LONGS)
+                : new HeapStorage(buckets * BUCKET_LONGS);
+        this.mask = buckets - 1;
+        this.megabytes = (int) (buckets * BUCKET_ENTRIES * ENTRY_BYTES / (1024 * 1024));
+        this.offHeap = offHeap;
+        this.probes = new LongAdder();
+        this.hits = new LongAdder();
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * <p>Looks up the entry of a position.</p>
+     * @param key position key
+     * @return packed data of the entry or 0 when it is missing
+     */
+    public long probe(long key) {
+        long bucket = getBucket(key);
+
+        probes.increment();
+        for (long i = bucket; i < bucket + BUCKET_LONGS; i += 2) {
+            long data = entries.get(i);
+
+            if (data != 0 && (entries.get(i + 1) ^ data) == key) {
+                hits.increment();
+                return data;
+            }
+        }
+
+        return 0L;
+    }
+
+    /**
+     * <p>Stores a search result. Scores of mates must be relative to the
+     * node, see <code>toTable</code>.</p>
+     * @param key position key
+     * @param move best move or <code>Move.NONE</code> to keep the stored one
+     * @param score score of the node
+     * @param depth remaining plies of the node
+     * @param bound <code>UPPER</code>, <code>LOWER</code> or <code>EXACT</code>
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        long bucket = getBucket(key);
+        int current = age;
+        long replaced = bucket;
+        int lowest = Integer.MAX_VALUE;
+
+        for (long i = bucket; i < bucket + BUCKET_LONGS; i += 2) {
+            long data = entries.get(i);
+
+            if (data == 0 || (entries.get(i + 1) ^ data) == key) {
+                if (move == 0 && data != 0) {
+                    move = getMove(data);
+                }
+                replaced = i;
+                break;
+            }
+
+            // Every search since the entry was stored costs it eight plies
+            int value = getDepth(data) - 8 * ((current - getAge(data)) & AGE_MASK);
+            if (value < lowest) {
+                lowest = value;
+                replaced = i;
+            }
+        }
+
+        long data = (move & 0xFFFFFL)
+                | (score & 0xFFFFL) << 20
+                | (long) Math.max(0, Math.min(depth, 0xFF)) << 36
+                | (long) bound << 44
+                | (long) current << 46;
+
+        entries.set(replaced, data);
+        entries.set(replaced + 1, key ^ data);
+    }
+
+    /**
+     * <p>Ages every entry by starting a new search, so entries of previous
+     * searches are replaced first.</p>
+     */
+    public void newSearch() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    /**
+     * <p>Removes every entry and resets the statistics. Blocks of the
+     * table are cleared in parallel on the common fork/join pool.</p>
+     */
+    public void clear() {
+        long size = entries.size();
+
+        LongStream.range(0, (size + CLEAR_BLOCK - 1) / CLEAR_BLOCK)
+                .parallel()
+                .forEach(block -> entries.clear(block * CLEAR_BLOCK,
+                        Math.min(size, (block + 1) * CLEAR_BLOCK)));
+        probes.reset();
+        hits.reset();
+        age = 0;
+    }
+
+    private long getBucket(long key) {
+        return ((key >>> 32) & mask) * BUCKET_LONGS;
+    }
+
+    //
+    // Statistics
+    //
+    /**
+     * @return size of the allocated table, the requested size rounded down
+     */
+    public int getMegabytes() {
+        return megabytes;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return share of probes finding their entry from 0 to 1
+     */
+    public double getHitRate() {
+        long count = probes.sum();
+
+        return count == 0 ? 0 : (double) hits.sum() / count;
+    }
+
+    /**
+     * <p>Samples the first thousand entries for ones stored by the current search.</p>
+     * @return permille of the table in use, as the UCI <code>hashfull</code>
+     */
+    public int getHashFull() {
+        int sample = (int) Math.min(FILL_SAMPLE, entries.size() / 2);
+        int current = age;
+        int used = 0;
+
+        for (int i = 0; i < sample * 2; i += 2) {
+            long data = entries.get(i);
+
+            if (data != 0 && getAge(data) == current) {
+                used++;
+            }
+        }
+
+        return used * 1000 / sample;
+    }
+
+    //
+    // Entry fields
+    //
+    public static int getMove(long data) {
+        return (int) (data & 0xFFFFF);
+    }
+
+    public static int getScore(long data) {
+        return (short) (data >>> 20);
+    }
+
+    public static int getDepth(long data) {
+        return (int) (data >>> 36 & 0xFF);
+    }
+
+    public static int getBound(long data) {
+        return (int) (data >>> 44 & 0x3);
+    }
+
+    private static int getAge(long data) {
+        return (int) (data >>> 46 & AGE_MASK);
+    }
+
+    /**
+     * <p>Converts a mate score from the root to the distance from the node,
+     * so it stays valid when the node is reached at another ply.</p>
+     * @param score score relative to the root
+     * @param ply distance of the node from the root
+     * @return score to store
+     */
+    public static int toTable(int score, int ply) {
+        if (score >= Search.MATE_BOUND) {
+            return score + ply;
+        }
+        if (score <= -Search.MATE_BOUND) {
+            return score - ply;
+        }
+
+        return score;
+    }
+
+    /**
+     * @param score stored score
+     * @param ply distance of the node from the root
+     * @return score relative to the root
+     */
+    public static int fromTable(int score, int ply) {
+        if (score >= Search.MATE_BOUND) {
+            return score - ply;
+        }
+        if (score <= -Search.MATE_BOUND) {
+            return score + ply;
+        }
+
+        return score;
+    }
+}
@@ -0,0 +1,361 @@
+package main.engine;
+
+import main.models.Fen;
+import main.models.Move;
+import main.models.Position;
+import main.models.movables.MoveGenerator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Universal Chess Interface over standard input and output, so the engine
+ * runs without the Swing window under tournament managers and analysis tools.
+ * <p>Commands: <code>uci</code>, <code>isready</code>, <code>ucinewgame</code>,
+ * <code>setoption name Hash|Threads|EvalFile value V</code>,
+ * <code>position startpos|fen F [moves M...]</code>,
+ * <code>go [depth N] [nodes N] [movetime ms] [wtime ms] [btime ms] [winc ms]
+ * [binc ms] [movestogo N] [infinite]</code>, <code>stop</code> and <code>quit</code></p>
+ * The search runs on its own thread, so <code>stop</code> is read while it
+ * searches. Every completed iteration prints an <code>info</code> line.
+ */
+public class Uci {
+    private static final String NAME = "Chess";
+    private static final String AUTHOR = "Chess contributors";
+    // Moves left in the game when the GUI does not send movestogo
+    private static final int MOVES_TO_GO = 30;
+    // Milliseconds kept back for reading and writing commands
+    private static final int MOVE_OVERHEAD = 50;
+    private static final String EMPTY = "<empty>";
+
+    private final Engine engine;
+    private final PrintStream out;
+    private final int[] moves;
+    private Position position;
+    private Thread searcher;
+    // An infinite search holds back its best move until it is stopped
+    private boolean infinite;
+
+    //
+    // Constructor
+    //
+    /**
+     * @param out stream the GUI reads
+     */
+    public Uci(PrintStream out) {
+        this.engine = new Engine(1, TranspositionTable.DEFAULT_SIZE);
+        this.out = out;
+        this.moves = new int[Move.MAX_MOVES];
+        this.position = Fen.getPosition(Fen.START_POSITION);
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * <p>Executes commands until <code>quit</code> or the end of the input.</p>
+     * @param in commands of the GUI, one per line
+     * @throws IOException if the input cannot be read
+     */
+    public void run(BufferedReader in) throws IOException {
+        String line;
+
+        while ((line = in.readLine()) != null) {
+            if (!execute(line.trim())) {
+                break;
+            }
+        }
+        stop();
+    }
+
+    /**
+     * <p>Executes a single command. Malformed commands are reported
+     * by an <code>info string</code> line and otherwise ignored.</p>
+     * @param command line sent by the GUI
+     * @return false when the GUI quits
+     */
+    public boolean execute(String command) {
+        String[] tokens = command.split("\\s+");
+
+        try {
+            switch (tokens[0]) {
+                case "uci" -> {
+                    out.println("id name " + NAME);
+                    out.println("id author " + AUTHOR);
+                    out.println("option name Hash type spin default " + TranspositionTable.DEFAULT_SIZE
+                            + " min 1 max " + TranspositionTable.MAX_HEAP_SIZE);
+                    out.println("option name Threads type spin default 1 min 1 max " + Engine.MAX_THREADS);
+                    out.println("option name EvalFile type string default " + EMPTY);
+                    out.println("uciok");
+                }
+                case "isready" -> out.println("readyok");
+                case "ucinewgame" -> {
+                    stop();
+                    engine.newGame();
+                }
+                case "setoption" -> {
+                    stop();
+                    setOption(tokens);
+                }
+                case "position" -> {
+                    stop();
+                    setPosition(tokens);
+                }
+                case "go" -> {
+                    stop();
+                    go(tokens);
+                }
+                case "stop" -> stop();
+                case "quit" -> {
+                    return false;
+                }
+                default -> {
+                    if (!command.isEmpty()) {
+                        out.println("info string Unknown command: " + command);
+                    }
+                }
+            }
+        } catch (IllegalArgumentException | IllegalStateException | IOException e) {
+            out.println("info string " + e.getMessage());
+        }
+
+        return true;
+    }
+
+    /**
+     * <p>Changes a setting of the engine, <code>setoption name N value V</code>.</p>
+     * @param tokens words of the command
+     * @throws IOException if the network file cannot be read
+     */
+    private void setOption(String[] tokens) throws IOException {
+        int value = indexOf(tokens, "value");
+        if (tokens.length < 3 || value < 0) {
+            throw new IllegalArgumentException("Missing option name or value");
+        }
+        String name = String.join(" ", Arrays.copyOfRange(tokens, 2, value));
+        String argument = String.join(" ", Arrays.copyOfRange(tokens, value + 1, tokens.length));
+
+        switch (name.toLowerCase()) {
+            case "hash" -> engine.setHash(getSpin(argument, 1, TranspositionTable.MAX_HEAP_SIZE));
+            case "threads" -> engine.setThreads(getSpin(argument, 1, Engine.MAX_THREADS));
+            case "evalfile" -> engine.setNetwork(argument.isEmpty() || argument.equals(EMPTY)
+                    ? null
+                    : Network.load(Path.of(argument)));
+            default -> throw new IllegalArgumentException("Unknown option: " + name);
+        }
+    }
+
+    /**
+     * <p>Sets up the position to search, <code>position startpos|fen F [moves M...]</code>.
+     * Moves in coordinate notation are matched against the legal moves.</p>
+     * @param tokens words of the command
+     */
+    private void setPosition(String[] tokens) {
+        int movesIndex = indexOf(tokens, "moves");
+        int end = movesIndex < 0 ? tokens.length : movesIndex;
+        Position position;
+
+        if (tokens.length > 1 && tokens[1].equals("startpos")) {
+            position = Fen.getPosition(Fen.START_POSITION);
+        } else if (tokens.length > 2 && tokens[1].equals("fen")) {
+            position = Fen.getPosition(String.join(" ", Arrays.copyOfRange(tokens, 2, end)));
+        } else {
+            throw new IllegalArgumentException("Expected startpos or fen");
+        }
+
+        for (int i = end + 1; i < tokens.length; i++) {
+            int move = getMove(position, tokens[i]);
+            if (move == Move.NONE) {
+                throw new IllegalArgumentException("Illegal move: " + tokens[i]);
+            }
+            // A long game drops the moves before the last capture or pawn
+            // move, which repetitions cannot reach
+            if (position.getPly() == Position.MAX_PLY) {
+                position = new Position(position);
+            }
+            position.makeMove(move);
+        }
+        this.position = position;
+    }
+
+    /**
+     * @param position position the move is played in
+     * @param notation move in coordinate notation, for example <code>e7e8q</code>
+     * @return legal packed move or <code>Move.NONE</code>
+     */
+    private int getMove(Position position, String notation) {
+        int count = MoveGenerator.getLegalMoves(position, position.getTurn(), moves, 0);
+
+        for (int i = 0; i < count; i++) {
+            if (Move.toString(moves[i]).equals(notation)) {
+                return moves[i];
+            }
+        }
+
+        return Move.NONE;
+    }
+
+    /**
+     * <p>Starts searching the current position on a new thread,
+     * <code>go [depth N] [nodes N] [movetime ms] [wtime ms] [btime ms]
+     * [winc ms] [binc ms] [movestogo N] [infinite]</code>.</p>
+     * @param tokens words of the command
+     */
+    private void go(String[] tokens) {
+        int depth = 0;
+        long nodes = 0;
+        long moveTime = 0;
+        long[] times = new long[2];
+        long[] increments = new long[2];
+        int movesToGo = MOVES_TO_GO;
+        boolean infinite = false;
+
+        // The GUI waits for a best move after every go, even a malformed one
+        try {
+            for (int i = 1; i < tokens.length; i++) {
+                switch (tokens[i]) {
+                    case "depth" -> depth = Integer.parseInt(getValue(tokens, ++i));
+                    case "nodes" -> nodes = Long.parseLong(getValue(tokens, ++i));
+                    case "movetime" -> moveTime = Long.parseLong(getValue(tokens, ++i));
+                    case "wtime" -> times[0] = Long.parseLong(getValue(tokens, ++i));
+                    case "btime" -> times[1] = Long.parseLong(getValue(tokens, ++i));
+                    case "winc" -> increments[0] = Long.parseLong(getValue(tokens, ++i));
+                    case "binc" -> increments[1] = Long.parseLong(getValue(tokens, ++i));
+                    case "movestogo" -> movesToGo = Math.max(Integer.parseInt(getValue(tokens, ++i)), 1);
+                    case "infinite" -> infinite = true;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            out.println("info string " + e.getMessage());
+            out.println("bestmove " + Move.toString(Move.NONE));
+            return;
+        }
+
+        int side = position.getTurn().ordinal();
+        long time = infinite ? 0 : moveTime;
+        if (!infinite && time == 0 && times[side] > 0) {
+            time = getTime(times[side], increments[side], movesToGo);
+        }
+
+        Position root = new Position(position);
+        SearchLimits limits = new SearchLimits(depth, nodes, time);
+
+        synchronized (this) {
+            this.infinite = infinite;
+        }
+        this.searcher = new Thread(() -> search(root, limits), "uci-search");
+        searcher.start();
+    }
+
+    /**
+     * <p>Spends an even share of the remaining time on the move plus
+     * most of the increment, never more than the remaining time.</p>
+     * @param remaining milliseconds left on the clock
+     * @param increment milliseconds added after the move
+     * @param movesToGo moves to play until the next time control
+     * @return milliseconds to search
+     */
+    private static long getTime(long remaining, long increment, int movesToGo) {
+        long time = remaining / movesToGo + increment * 3 / 4;
+
+        return Math.max(Math.min(time, remaining - MOVE_OVERHEAD), 1);
+    }
+
+    /**
+     * <p>Searches on the search thread and prints the best move, holding
+     * it back while an infinite search waits for <code>stop</code>. A failed
+     * search is reported by an <code>info string</code> line and still ends
+     * with <code>bestmove 0000</code>, so the GUI does not wait forever.</p>
+     * @param root position to search
+     * @param limits budget of the search
+     */
+    private void search(Position root, SearchLimits limits) {
+        int bestMove = Move.NONE;
+
+        try {
+            bestMove = engine.search(root, limits, r -> out.println(Search.getInfo(r))).getBestMove();
+        } catch (RuntimeException e) {
+            out.println("info string Search failed: " + e);
+        }
+
+        synchronized (this) {
+            while (infinite) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        out.println("bestmove " + Move.toString(bestMove));
+    }
+
+    /**
+     * <p>Stops the running search and waits for its best move. The stop is
+     * repeated until the search thread ends, because a stop arriving before
+     * the search started is dropped, see <code>Engine.stop</code>.</p>
+     */
+    private void stop() {
+        Thread searcher = this.searcher;
+        if (searcher == null) {
+            return;
+        }
+
+        synchronized (this) {
+            infinite = false;
+            notifyAll();
+        }
+        try {
+            while (searcher.isAlive()) {
+                engine.stop();
+                searcher.join(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.searcher = null;
+    }
+
+    private static int indexOf(String[] tokens, String token) {
+        for (int i = 0; i < tokens.length; i++) {
+            if (tokens[i].equals(token)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param tokens words of the command
+     * @param index index of the value following its name
+     * @return value of the parameter
+     * @throws IllegalArgumentException when the command ends without the value
+     */
+    private static String getValue(String[] tokens, int index) {
+        if (index >= tokens.length) {
+            throw new IllegalArgumentException("Missing value of " + tokens[index - 1]);
+        }
+
+        return tokens[index];
+    }
+
+    private static int getSpin(String value, int min, int max) {
+        int spin = Integer.parseInt(value);
+
+        if (spin < min || spin > max) {
+            throw new IllegalArgumentException("Value out of range: " + value);
+        }
+
+        return spin;
+    }
+
+    public static void main(String[] args) throws IOException {
+        new Uci(System.out).run(new BufferedReader(new InputStreamReader(System.in)));
+    }
+}
@@ -0,0 +1,129 @@
+package main.models;
+
+import java.util.HashSet;
+
+/**
+ * Helper methods for <code>long</code> bitboards where every bit
+ * stands for a <code>Coordinate</code> by its ordinal value.
+ */
+public final class Bitboards {
+    public static final long LEFT_BOUNDARY = 0x0101010101010101L;
+    public static final long RIGHT_BOUNDARY = LEFT_BOUNDARY << 7;
+
+    // Squares of two aligned squares indexed by both squares, 0 when not aligned
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINES = new long[64][64];
+
+    static {
+        int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}, {-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+        for (int square = 0; square < 64; square++) {
+            for (int[] d : directions) {
+                long ray = getRay(square, d[0], d[1], 0L);
+                long line = ray | getRay(square, -d[0], -d[1], 0L) | getBit(square);
+
+                for (long targets = ray; targets != 0; targets &= targets - 1) {
+                    int target = Long.numberOfTrailingZeros(targets);
+
+                    BETWEEN[square][target] = getRay(square, d[0], d[1], getBit(target)) & ~getBit(target);
+                    LINES[square][target] = line;
+                }
+            }
+        }
+    }
+
+    private Bitboards() {}
+
+    /**
+     * <p>Obtains a bitboard with a single square set.</p>
+     * @param square ordinal value of the <code>Coordinate</code>
+     * @return bitboard of the square
+     */
+    public static long getBit(int square) {
+        return 1L << square;
+    }
+
+    public static boolean contains(long bitboard, int square) {
+        return (bitboard & (1L << square)) != 0;
+    }
+
+    /**
+     * <p>Obtains the square a single step away unless the step leaves the board.</p>
+     * @param square ordinal value of the <code>Coordinate</code>
+     * @param rowStep rows to move, negative is up
+     * @param columnStep columns to move, negative is left
+     * @return bitboard of the destination or 0
+     */
+    public static long getStep(int square, int rowStep, int columnStep) {
+        int row = (square >>> 3) + rowStep;
+        int column = (square & 7) + columnStep;
+
+        if (row < 0 || row > 7 || column < 0 || column > 7) {
+            return 0L;
+        }
+        return 1L << (row * 8 + column);
+    }
+
+    /**
+     * <p>Walks a ray from the square until it leaves the board
+     * or reaches the first occupied square, which is included.</p>
+     * @param square ordinal value of the <code>Coordinate</code>
+     * @param rowStep rows per step, negative is up
+     * @param columnStep columns per step, negative is left
+     * @param occupied bitboard of blocking figures
+     * @return bitboard of the ray
+     */
+    public static long getRay(int square, int rowStep, int columnStep, long occupied) {
+        long ray = 0L;
+        int row = (square >>> 3) + rowStep;
+        int column = (square & 7) + columnStep;
+
+        while (row >= 0 && row <= 7 && column >= 0 && column <= 7) {
+            long bit = 1L << (row * 8 + column);
+            ray |= bit;
+            if ((occupied & bit) != 0) {
+                break;
+            }
+            row += rowStep;
+            column += columnStep;
+        }
+
+        return ray;
+    }
+
+    /**
+     * @param from ordinal value of the first <code>Coordinate</code>
+     * @param to ordinal value of the second <code>Coordinate</code>
+     * @return squares strictly between two squares on a row, column
+     * or diagonal, 0 when they are not aligned
+     */
+    public static long getBetween(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * @param from ordinal value of the first <code>Coordinate</code>
+     * @param to ordinal value of the second <code>Coordinate</code>
+     * @return the whole row, column or diagonal through both squares
+     * from edge to edge, 0 when they are not aligned
+     */
+    public static long getLine(int from, int to) {
+        return LINES[from][to];
+    }
+
+    /**
+     * <p>Converts a bitboard to the set of coordinates used by the UI.</p>
+     * @param bitboard squares to convert
+     * @return a set of coordinates for every set bit
+     */
+    public static HashSet<Coordinate> getCoordinates(long bitboard) {
+        HashSet<Coordinate> set = new HashSet<>();
+
+        while (bitboard != 0) {
+            set.add(Coordinate.getCoordinate(Long.numberOfTrailingZeros(bitboard)));
+            bitboard &= bitboard - 1;
+        }
+
+        return set;
+    }
+}
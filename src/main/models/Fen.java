@@ -0,0 +1,169 @@
+package main.models;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation.
+ * FEN lists squares from a8 to h1, which is the ordinal order of <code>Coordinate</code>.
+ */
+public final class Fen {
+    public static final String START_POSITION =
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String FIGURES = "kqrbnp";
+
+    private Fen() {}
+
+    /**
+     * <p>Builds a position from its FEN record. Move counters may be omitted.</p>
+     * @param fen FEN record
+     * @return bitboard position
+     * @throws IllegalArgumentException when the record is malformed
+     */
+    public static Position getPosition(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        Position position = new Position();
+
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Incomplete FEN: " + fen);
+        }
+
+        // Figures
+        int square = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                continue;
+            }
+            if (Character.isDigit(c)) {
+                square += c - '0';
+                continue;
+            }
+
+            int rank = FIGURES.indexOf(Character.toLowerCase(c));
+            if (rank < 0 || square > 63) {
+                throw new IllegalArgumentException("Invalid FEN placement: " + fields[0]);
+            }
+            position.put(Character.isUpperCase(c) ? Side.WHITE : Side.BLACK,
+                    Rank.values()[rank], square++);
+        }
+        if (square != 64) {
+            throw new IllegalArgumentException("Invalid FEN placement: " + fields[0]);
+        }
+
+        position.setTurn(fields[1].equals("b") ? Side.BLACK : Side.WHITE);
+
+        // Castling rights
+        int castling = 0;
+        for (char c : fields[2].toCharArray()) {
+            switch (c) {
+                case 'K' -> castling |= Position.WHITE_SMALL_CASTLE;
+                case 'Q' -> castling |= Position.WHITE_BIG_CASTLE;
+                case 'k' -> castling |= Position.BLACK_SMALL_CASTLE;
+                case 'q' -> castling |= Position.BLACK_BIG_CASTLE;
+            }
+        }
+        position.setCastling(castling & getCastling(position));
+
+        position.setEnPassant(fields[3].equals("-") ? Position.NO_SQUARE : Move.getSquare(fields[3]));
+
+        if (fields.length > 5) {
+            position.setHalfMoves(Integer.parseInt(fields[4]));
+            position.setFullMoves(Integer.parseInt(fields[5]));
+        }
+
+        return position;
+    }
+
+    /**
+     * <p>Castling rights the figures allow. A right whose king or rook is not
+     * on its home square would castle with a missing figure, so it is dropped.</p>
+     * @param position position with its figures placed
+     * @return castling rights of the kings and rooks on their home squares
+     */
+    private static int getCastling(Position position) {
+        int castling = 0;
+
+        if (isAt(position, Side.WHITE, Rank.KING, Coordinate.A5)) {
+            if (isAt(position, Side.WHITE, Rank.ROOK, Coordinate.A8)) {
+                castling |= Position.WHITE_SMALL_CASTLE;
+            }
+            if (isAt(position, Side.WHITE, Rank.ROOK, Coordinate.A1)) {
+                castling |= Position.WHITE_BIG_CASTLE;
+            }
+        }
+        if (isAt(position, Side.BLACK, Rank.KING, Coordinate.H5)) {
+            if (isAt(position, Side.BLACK, Rank.ROOK, Coordinate.H8)) {
+                castling |= Position.BLACK_SMALL_CASTLE;
+            }
+            if (isAt(position, Side.BLACK, Rank.ROOK, Coordinate.H1)) {
+                castling |= Position.BLACK_BIG_CASTLE;
+            }
+        }
+
+        return castling;
+    }
+
+    private static boolean isAt(Position position, Side side, Rank rank, Coordinate coordinate) {
+        return position.getPieceAt(coordinate.ordinal()) == Position.getPiece(side, rank);
+    }
+
+    /**
+     * <p>Writes the FEN record of a position.</p>
+     * @param position bitboard position
+     * @return FEN record
+     */
+    public static String getFen(Position position) {
+        StringBuilder fen = new StringBuilder();
+
+        for (int row = 0; row < 8; row++) {
+            int empty = 0;
+
+            for (int column = 0; column < 8; column++) {
+                int piece = position.getPieceAt(row * 8 + column);
+
+                if (piece == Position.EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+
+                char c = FIGURES.charAt(Position.getRank(piece).ordinal());
+                fen.append(Position.getSide(piece).equals(Side.WHITE) ? Character.toUpperCase(c) : c);
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (row < 7) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(position.getTurn().equals(Side.WHITE) ? " w " : " b ");
+
+        int castling = position.getCastling();
+        if (castling == 0) {
+            fen.append('-');
+        }
+        if ((castling & Position.WHITE_SMALL_CASTLE) != 0) {
+            fen.append('K');
+        }
+        if ((castling & Position.WHITE_BIG_CASTLE) != 0) {
+            fen.append('Q');
+        }
+        if ((castling & Position.BLACK_SMALL_CASTLE) != 0) {
+            fen.append('k');
+        }
+        if ((castling & Position.BLACK_BIG_CASTLE) != 0) {
+            fen.append('q');
+        }
+
+        fen.append(' ')
+                .append(position.getEnPassant() == Position.NO_SQUARE
+                        ? "-" : Move.getSquareName(position.getEnPassant()))
+                .append(' ').append(position.getHalfMoves())
+                .append(' ').append(position.getFullMoves());
+
+        return fen.toString();
+    }
+}
@@ -0,0 +1,26 @@
+package main.models;
+
+/**
+ * Receives every figure put on and removed from the board of a
+ * <code>Position</code>, including those of making and unmaking moves,
+ * so state derived from the figures can be updated incrementally.
+ */
+public interface FigureListener {
+
+    /**
+     * <p>Forgets every figure, as if the board was empty.</p>
+     */
+    void clear();
+
+    /**
+     * @param piece piece value, see <code>Position.getPiece</code>
+     * @param square ordinal value of the <code>Coordinate</code>
+     */
+    void put(int piece, int square);
+
+    /**
+     * @param piece piece value, see <code>Position.getPiece</code>
+     * @param square ordinal value of the <code>Coordinate</code>
+     */
+    void remove(int piece, int square);
+}
@@ -1,10 +1,40 @@
 package main.models;
 
-import java.util.HashSet;
+import main.models.movables.MoveGenerator;
 
-public interface Movable {
+/**
+ * Allocation-free moves of a single figure, written as packed ints to a
+ * reusable buffer supplied by the caller, see <code>Move</code>.
+ * <p>Moves of a whole side come from
+ * <code>MoveGenerator.getLegalMoves(position, side, buffer, index)</code>,
+ * which this forwards to.</p>
+ */
+public final class Movable {
+    private Movable() {}
 
-    HashSet<Coordinate> getMoves(Figure figure);
-    HashSet<Coordinate> getControlledMoves(Figure figure);
-    HashSet<Coordinate> getCheckMoves(Figure figure);
+    /**
+     * <p>Writes legal moves of the figure on the square to the buffer.
+     * The buffer needs room for the moves of its whole side,
+     * <code>Move.MAX_MOVES</code> from the index.</p>
+     * @param position bitboard position
+     * @param square ordinal value of the figure's <code>Coordinate</code>
+     * @param moves buffer of packed moves
+     * @param index first free index of the buffer
+     * @return index after the last written move
+     */
+    public static int getMoves(Position position, int square, int[] moves, int index) {
+        int piece = position.getPieceAt(square);
+        if (piece == Position.EMPTY) {
+            return index;
+        }
+        int count = MoveGenerator.getLegalMoves(position, Position.getSide(piece), moves, index);
+
+        for (int i = index; i < count; i++) {
+            if (Move.getFrom(moves[i]) == square) {
+                moves[index++] = moves[i];
+            }
+        }
+
+        return index;
+    }
 }
@@ -0,0 +1,187 @@
+package main.models;
+
+/**
+ * Packs a move into a single <code>int</code>, so move lists
+ * are plain reusable arrays instead of sets of coordinates.
+ * <p>bits 0-5 origin square, bits 6-11 destination square,
+ * bits 12-15 flags, bits 16-18 promotion rank ordinal</p>
+ * Squares are <code>Coordinate</code> ordinals. King is never a
+ * promotion, so a zero promotion field means no promotion.
+ * <p>A move is also packed into a <code>short</code> for tables and
+ * snapshots, bits 0-11 squares as above, bits 12-15 a code for double
+ * steps, castle moves, en passant and the promotion rank. Captures are
+ * restored from the position, see <code>fromShort</code>.</p>
+ */
+public final class Move {
+    public static final int NONE = 0;
+    public static final int MAX_MOVES = 256;
+
+    // Flags
+    public static final int CAPTURE = 1;
+    public static final int DOUBLE_STEP = 2;
+    public static final int EN_PASSANT = 4;
+    public static final int CASTLE = 8;
+
+    private static final Rank[] RANKS = Rank.values();
+    private static final String NULL_NOTATION = "0000";
+
+    // Codes of a short move, promotion codes add the rank ordinal
+    private static final int DOUBLE_STEP_CODE = 1;
+    private static final int CASTLE_CODE = 2;
+    private static final int EN_PASSANT_CODE = 3;
+    private static final int PROMOTION_CODE = 3;
+
+    private Move() {}
+
+    public static int getMove(int from, int to, int flags) {
+        return from | to << 6 | flags << 12;
+    }
+
+    public static int getMove(int from, int to, int flags, Rank promotion) {
+        return getMove(from, to, flags) | promotion.ordinal() << 16;
+    }
+
+    public static int getFrom(int move) {
+        return move & 0x3F;
+    }
+
+    public static int getTo(int move) {
+        return move >>> 6 & 0x3F;
+    }
+
+    public static int getFlags(int move) {
+        return move >>> 12 & 0xF;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE << 12) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT << 12) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        return (move & CASTLE << 12) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move >>> 16 & 0x7) != 0;
+    }
+
+    /**
+     * @param move packed move
+     * @return promotion rank or null when the move does not promote
+     */
+    public static Rank getPromotion(int move) {
+        int rank = move >>> 16 & 0x7;
+
+        return rank == 0 ? null : RANKS[rank];
+    }
+
+    /**
+     * <p>Packs a move into 16 bits, dropping the capture flag.</p>
+     * @param move packed move
+     * @return short move
+     */
+    public static short toShort(int move) {
+        int code;
+
+        if (isPromotion(move)) {
+            code = PROMOTION_CODE + (move >>> 16 & 0x7);
+        } else if ((move & DOUBLE_STEP << 12) != 0) {
+            code = DOUBLE_STEP_CODE;
+        } else if (isCastle(move)) {
+            code = CASTLE_CODE;
+        } else if (isEnPassant(move)) {
+            code = EN_PASSANT_CODE;
+        } else {
+            code = 0;
+        }
+
+        return (short) (move & 0xFFF | code << 12);
+    }
+
+    /**
+     * <p>Unpacks a short move, flagging it as a capture when the
+     * destination is occupied in the position it is played in.</p>
+     * @param position position before the move
+     * @param move short move
+     * @return packed move
+     */
+    public static int fromShort(Position position, short move) {
+        int from = move & 0x3F;
+        int to = move >>> 6 & 0x3F;
+        int code = move >>> 12 & 0xF;
+        int capture = position.isEmpty(to) ? NONE : CAPTURE;
+
+        return switch (code) {
+            case 0 -> getMove(from, to, capture);
+            case DOUBLE_STEP_CODE -> getMove(from, to, DOUBLE_STEP);
+            case CASTLE_CODE -> getMove(from, to, CASTLE);
+            case EN_PASSANT_CODE -> getMove(from, to, CAPTURE | EN_PASSANT);
+            default -> getMove(from, to, capture, RANKS[code - PROMOTION_CODE]);
+        };
+    }
+
+    /**
+     * <p>Names a square in algebraic notation, <code>Coordinate.A5</code> is <code>e1</code>.</p>
+     * @param square ordinal value of the <code>Coordinate</code>
+     * @return algebraic name of the square
+     */
+    public static String getSquareName(int square) {
+        return "" + (char) ('a' + (square & 7)) + (char) ('8' - (square >>> 3));
+    }
+
+    /**
+     * @param name algebraic name of the square
+     * @return ordinal value of the <code>Coordinate</code>
+     * @throws IllegalArgumentException when the name is not a square
+     */
+    public static int getSquare(String name) {
+        if (name.length() != 2
+                || name.charAt(0) < 'a' || name.charAt(0) > 'h'
+                || name.charAt(1) < '1' || name.charAt(1) > '8') {
+            throw new IllegalArgumentException("Invalid square: " + name);
+        }
+        return ('8' - name.charAt(1)) * 8 + (name.charAt(0) - 'a');
+    }
+
+    /**
+     * <p>Formats a move in coordinate notation, for example <code>e7e8q</code>.
+     * <code>NONE</code> is written as the null move <code>0000</code>.</p>
+     * @param move packed move
+     * @return move notation
+     */
+    public static String toString(int move) {
+        if (move == NONE) {
+            return NULL_NOTATION;
+        }
+        String notation = getSquareName(getFrom(move)) + getSquareName(getTo(move));
+
+        return isPromotion(move)
+                ? notation + getPromotion(move).getNotation().toLowerCase()
+                : notation;
+    }
+
+    /**
+     * <p>Writes a move to every destination of the bitboard,
+     * flagging destinations occupied by a figure as captures.</p>
+     * @param position bitboard position
+     * @param from ordinal value of the origin <code>Coordinate</code>
+     * @param targets bitboard of destinations
+     * @param moves buffer of packed moves
+     * @param index first free index of the buffer
+     * @return index after the last written move
+     */
+    public static int addMoves(Position position, int from, long targets, int[] moves, int index) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+
+            moves[index++] = getMove(from, to, position.isEmpty(to) ? NONE : CAPTURE);
+        }
+
+        return index;
+    }
+}
@@ -0,0 +1,157 @@
+package main.models;
+
+/**
+ * Worth of every figure on every square for the middlegame and the endgame,
+ * the material value of <code>Rank.getValue()</code> in centipawns plus a
+ * positional bonus. White values are positive and black values negative,
+ * so the sum over all figures is the score for white.
+ * <p>Tables are written from a8 to h1, which is the ordinal order of
+ * <code>Coordinate</code> from the point of view of white. Black looks up
+ * the square mirrored vertically.</p>
+ * The game phase counts the pieces left on the board, from
+ * <code>MAX_PHASE</code> in the opening to zero with kings and pawns only.
+ */
+public final class PieceSquareTable {
+    public static final int PAWN_VALUE = 100;
+    public static final int MAX_PHASE = 24;
+
+    private static final int[] PAWN = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             10,  10,  20,  30,  30,  20,  10,  10,
+              5,   5,  10,  25,  25,  10,   5,   5,
+              0,   0,   0,  20,  20,   0,   0,   0,
+              5,  -5, -10,   0,   0, -10,  -5,   5,
+              5,  10,  10, -20, -20,  10,  10,   5,
+              0,   0,   0,   0,   0,   0,   0,   0
+    };
+    private static final int[] PAWN_ENDGAME = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+             80,  80,  80,  80,  80,  80,  80,  80,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             30,  30,  30,  30,  30,  30,  30,  30,
+             15,  15,  15,  15,  15,  15,  15,  15,
+              5,   5,   5,   5,   5,   5,   5,   5,
+              0,   0,   0,   0,   0,   0,   0,   0,
+              0,   0,   0,   0,   0,   0,   0,   0
+    };
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20,   0,   0,   0,   0, -20, -40,
+            -30,   0,  10,  15,  15,  10,   0, -30,
+            -30,   5,  15,  20,  20,  15,   5, -30,
+            -30,   0,  15,  20,  20,  15,   0, -30,
+            -30,   5,  10,  15,  15,  10,   5, -30,
+            -40, -20,   0,   5,   5,   0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,  10,  10,   5,   0, -10,
+            -10,   5,   5,  10,  10,   5,   5, -10,
+            -10,   0,  10,  10,  10,  10,   0, -10,
+            -10,  10,  10,  10,  10,  10,  10, -10,
+            -10,   5,   0,   0,   0,   0,   5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] ROOK = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+              5,  10,  10,  10,  10,  10,  10,   5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+              0,   0,   0,   5,   5,   0,   0,   0
+    };
+    private static final int[] QUEEN = {
+            -20, -10, -10,  -5,  -5, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,   5,   5,   5,   0, -10,
+             -5,   0,   5,   5,   5,   5,   0,  -5,
+              0,   0,   5,   5,   5,   5,   0,  -5,
+            -10,   5,   5,   5,   5,   5,   0, -10,
+            -10,   0,   5,   0,   0,   0,   0, -10,
+            -20, -10, -10,  -5,  -5, -10, -10, -20
+    };
+    private static final int[] KING = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+             20,  20,   0,   0,   0,   0,  20,  20,
+             20,  30,  10,   0,   0,  10,  30,  20
+    };
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10,   0,   0, -10, -20, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -30,   0,   0,   0,   0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    // Tables indexed by rank ordinal
+    private static final int[][] MIDDLEGAME_TABLES = {KING, QUEEN, ROOK, BISHOP, KNIGHT, PAWN};
+    private static final int[][] ENDGAME_TABLES = {KING_ENDGAME, QUEEN, ROOK, BISHOP, KNIGHT, PAWN_ENDGAME};
+    private static final int[] PHASES = {0, 4, 2, 1, 1, 0};
+
+    private static final int[][] MIDDLEGAME = setValues(MIDDLEGAME_TABLES);
+    private static final int[][] ENDGAME = setValues(ENDGAME_TABLES);
+
+    private PieceSquareTable() {}
+
+    /**
+     * <p>Adds the material value to the positional bonus of every
+     * piece and square, negated for black.</p>
+     * @param tables positional bonus of white indexed by rank ordinal
+     * @return values indexed by piece and square
+     */
+    private static int[][] setValues(int[][] tables) {
+        Rank[] ranks = Rank.values();
+        int[][] values = new int[Side.values().length * ranks.length][64];
+
+        for (Rank rank : ranks) {
+            int white = Position.getPiece(Side.WHITE, rank);
+            int black = Position.getPiece(Side.BLACK, rank);
+
+            for (int square = 0; square < 64; square++) {
+                values[white][square] = rank.getValue() * PAWN_VALUE + tables[rank.ordinal()][square];
+                values[black][square] = -(rank.getValue() * PAWN_VALUE + tables[rank.ordinal()][square ^ 56]);
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * @param piece piece value, see <code>Position.getPiece</code>
+     * @param square ordinal value of the <code>Coordinate</code>
+     * @return middlegame worth of the figure in centipawns for white
+     */
+    public static int getMiddlegame(int piece, int square) {
+        return MIDDLEGAME[piece][square];
+    }
+
+    /**
+     * @param piece piece value, see <code>Position.getPiece</code>
+     * @param square ordinal value of the <code>Coordinate</code>
+     * @return endgame worth of the figure in centipawns for white
+     */
+    public static int getEndgame(int piece, int square) {
+        return ENDGAME[piece][square];
+    }
+
+    /**
+     * @param piece piece value, see <code>Position.getPiece</code>
+     * @return contribution of the figure to the game phase
+     */
+    public static int getPhase(int piece) {
+        return PHASES[piece % PHASES.length];
+    }
+}
@@ -0,0 +1,571 @@
+package main.models;
+
+import java.util.Arrays;
+
+/**
+ * Bitboard representation of the figures on the board.
+ * Every side and rank pair is held in a single <code>long</code>
+ * where a set bit marks the ordinal of an occupied <code>Coordinate</code>.
+ * A mailbox array mirrors the bitboards for direct access by square.
+ */
+public class Position {
+    public static final int EMPTY = -1;
+    public static final int NO_SQUARE = -1;
+    public static final int MAX_PLY = 1024;
+
+    // Castling rights
+    public static final int WHITE_SMALL_CASTLE = 1;
+    public static final int WHITE_BIG_CASTLE = 2;
+    public static final int BLACK_SMALL_CASTLE = 4;
+    public static final int BLACK_BIG_CASTLE = 8;
+
+    private static final Side[] SIDES = Side.values();
+    private static final Rank[] RANKS = Rank.values();
+    private static final int[] CASTLING_MASKS = setCastlingMasks();
+    private static final int PAWN = Rank.PAWN.ordinal();
+
+    private final long[][] figures;
+    private final long[] sides;
+    private final int[] squares;
+    private long occupied;
+    private int castling;
+    private int enPassant;
+    private Side turn;
+    private int halfMoves;
+    private int fullMoves;
+    private long key;
+    private long pawnKey;
+    // Tapered piece-square scores of white and the game phase
+    private int middlegame;
+    private int endgame;
+    private int phase;
+    private FigureListener listener;
+    // Undo stack of two entries per ply: previous key and packed state
+    private long[] history;
+    private int ply;
+
+    //
+    // Constructors
+    //
+    public Position() {
+        this.figures = new long[SIDES.length][RANKS.length];
+        this.sides = new long[SIDES.length];
+        this.squares = new int[64];
+        this.enPassant = NO_SQUARE;
+        this.turn = Side.WHITE;
+        this.fullMoves = 1;
+        this.key = Zobrist.getCastlingKey(0);
+        Arrays.fill(squares, EMPTY);
+    }
+
+    public Position(Position position) {
+        this();
+        set(position);
+    }
+
+    //
+    // Field initializers
+    //
+    /**
+     * <p>Castling rights kept after a figure moves from or to a square.
+     * Moving the king or a rook, or removing a rook, drops the rights.</p>
+     * @return masks of castling rights indexed by square
+     */
+    private static int[] setCastlingMasks() {
+        int[] masks = new int[64];
+        Arrays.fill(masks, WHITE_SMALL_CASTLE | WHITE_BIG_CASTLE | BLACK_SMALL_CASTLE | BLACK_BIG_CASTLE);
+
+        masks[Coordinate.A5.ordinal()] &= ~(WHITE_SMALL_CASTLE | WHITE_BIG_CASTLE);
+        masks[Coordinate.A8.ordinal()] &= ~WHITE_SMALL_CASTLE;
+        masks[Coordinate.A1.ordinal()] &= ~WHITE_BIG_CASTLE;
+        masks[Coordinate.H5.ordinal()] &= ~(BLACK_SMALL_CASTLE | BLACK_BIG_CASTLE);
+        masks[Coordinate.H8.ordinal()] &= ~BLACK_SMALL_CASTLE;
+        masks[Coordinate.H1.ordinal()] &= ~BLACK_BIG_CASTLE;
+
+        return masks;
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * <p>Encodes a side and rank to a single value stored in the mailbox.</p>
+     * @param side side of the figure
+     * @param rank rank of the figure
+     * @return piece value
+     */
+    public static int getPiece(Side side, Rank rank) {
+        return side.ordinal() * RANKS.length + rank.ordinal();
+    }
+
+    public static Side getSide(int piece) {
+        return SIDES[piece / RANKS.length];
+    }
+
+    public static Rank getRank(int piece) {
+        return RANKS[piece % RANKS.length];
+    }
+
+    /**
+     * <p>Places a figure on an empty square.</p>
+     * @param side side of the figure
+     * @param rank rank of the figure
+     * @param square ordinal value of the <code>Coordinate</code>
+     */
+    public void put(Side side, Rank rank, int square) {
+        put(getPiece(side, rank), square);
+    }
+
+    private void put(int piece, int square) {
+        long bit = 1L << square;
+        int side = piece / RANKS.length;
+
+        figures[side][piece % RANKS.length] |= bit;
+        sides[side] |= bit;
+        occupied |= bit;
+        squares[square] = piece;
+        key ^= Zobrist.getFigureKey(piece, square);
+        if (piece % RANKS.length == PAWN) {
+            pawnKey ^= Zobrist.getFigureKey(piece, square);
+        }
+        middlegame += PieceSquareTable.getMiddlegame(piece, square);
+        endgame += PieceSquareTable.getEndgame(piece, square);
+        phase += PieceSquareTable.getPhase(piece);
+        if (listener != null) {
+            listener.put(piece, square);
+        }
+    }
+
+    /**
+     * <p>Removes a figure from the square if there is any.</p>
+     * @param square ordinal value of the <code>Coordinate</code>
+     * @return removed piece or <code>EMPTY</code>
+     */
+    public int remove(int square) {
+        int piece = squares[square];
+
+        if (piece != EMPTY) {
+            long bit = ~(1L << square);
+            int side = piece / RANKS.length;
+
+            figures[side][piece % RANKS.length] &= bit;
+            sides[side] &= bit;
+            occupied &= bit;
+            squares[square] = EMPTY;
+            key ^= Zobrist.getFigureKey(piece, square);
+            if (piece % RANKS.length == PAWN) {
+                pawnKey ^= Zobrist.getFigureKey(piece, square);
+            }
+            middlegame -= PieceSquareTable.getMiddlegame(piece, square);
+            endgame -= PieceSquareTable.getEndgame(piece, square);
+            phase -= PieceSquareTable.getPhase(piece);
+            if (listener != null) {
+                listener.remove(piece, square);
+            }
+        }
+
+        return piece;
+    }
+
+    /**
+     * <p>Moves a figure and removes the figure occupying the destination.</p>
+     * @param from ordinal value of the origin <code>Coordinate</code>
+     * @param to   ordinal value of the destination <code>Coordinate</code>
+     * @return captured piece or <code>EMPTY</code>
+     */
+    public int move(int from, int to) {
+        int captured = remove(to);
+        int piece = remove(from);
+
+        if (piece != EMPTY) {
+            put(piece, to);
+        }
+
+        setCastling(castling & CASTLING_MASKS[from] & CASTLING_MASKS[to]);
+        setEnPassant(piece != EMPTY && getRank(piece).equals(Rank.PAWN) && Math.abs(to - from) == 16
+                ? (from + to) / 2
+                : NO_SQUARE);
+
+        return captured;
+    }
+
+    /**
+     * <p>Applies a packed move including captures, castling, en passant
+     * and promotion, then passes the turn. The move is not validated.
+     * The previous state is pushed to the undo stack, see <code>unmakeMove</code>.</p>
+     * @param move packed move, see <code>Move</code>
+     * @throws IllegalStateException when the undo stack is full
+     */
+    public void makeMove(int move) {
+        if (history == null) {
+            history = new long[MAX_PLY * 2];
+        }
+        if (ply == MAX_PLY) {
+            throw new IllegalStateException("Undo stack is full");
+        }
+
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        int flags = Move.getFlags(move);
+        int piece = squares[from];
+        Side side = getSide(piece);
+        long state = (move & 0xFFFFFL)
+                | (long) castling << 24
+                | (long) (enPassant + 1) << 28
+                | (long) halfMoves << 35;
+        int captured;
+
+        history[ply * 2] = key;
+
+        if ((flags & Move.EN_PASSANT) != 0) {
+            captured = remove(side.equals(Side.WHITE) ? to + 8 : to - 8);
+            move(from, to);
+        } else {
+            captured = move(from, to);
+        }
+
+        if ((flags & Move.CASTLE) != 0) {
+            if (to > from) {
+                move(to + 1, to - 1);   // Small castle
+            } else {
+                move(to - 2, to + 1);   // Big castle
+            }
+            setEnPassant(NO_SQUARE);
+        }
+        if (Move.isPromotion(move)) {
+            remove(to);
+            put(side, Move.getPromotion(move), to);
+        }
+
+        halfMoves = (flags & Move.CAPTURE) != 0 || getRank(piece).equals(Rank.PAWN) ? 0 : halfMoves + 1;
+        if (side.equals(Side.BLACK)) {
+            fullMoves++;
+        }
+        setTurn(side.getOpposite());
+
+        history[ply * 2 + 1] = state | (long) (captured + 1) << 20;
+        ply++;
+    }
+
+    /**
+     * <p>Takes back the last move of <code>makeMove</code>, restoring the captured
+     * figure, castling rights, en passant square, clocks and key.</p>
+     * @throws IllegalStateException when there is no move to take back
+     */
+    public void unmakeMove() {
+        if (ply == 0) {
+            throw new IllegalStateException("No move to take back");
+        }
+        ply--;
+
+        long state = history[ply * 2 + 1];
+        int move = (int) (state & 0xFFFFF);
+        int captured = (int) (state >>> 20 & 0xF) - 1;
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        int flags = Move.getFlags(move);
+        int piece = remove(to);
+        Side side = getSide(piece);
+
+        put(Move.isPromotion(move) ? getPiece(side, Rank.PAWN) : piece, from);
+
+        if ((flags & Move.CASTLE) != 0) {
+            if (to > from) {
+                put(remove(to - 1), to + 1);   // Small castle
+            } else {
+                put(remove(to + 1), to - 2);   // Big castle
+            }
+        }
+        if (captured != EMPTY) {
+            if ((flags & Move.EN_PASSANT) != 0) {
+                put(captured, side.equals(Side.WHITE) ? to + 8 : to - 8);
+            } else {
+                put(captured, to);
+            }
+        }
+
+        castling = (int) (state >>> 24 & 0xF);
+        enPassant = (int) (state >>> 28 & 0x7F) - 1;
+        halfMoves = (int) (state >>> 35);
+        if (side.equals(Side.BLACK)) {
+            fullMoves--;
+        }
+        turn = side;
+        key = history[ply * 2];
+    }
+
+    /**
+     * <p>Passes the turn without moving, as a search probing whether the
+     * position is good even without a move. Repetitions are not looked up
+     * across the null move.</p>
+     * @throws IllegalStateException when the undo stack is full
+     */
+    public void makeNullMove() {
+        if (history == null) {
+            history = new long[MAX_PLY * 2];
+        }
+        if (ply == MAX_PLY) {
+            throw new IllegalStateException("Undo stack is full");
+        }
+
+        history[ply * 2] = key;
+        history[ply * 2 + 1] = (long) castling << 24
+                | (long) (enPassant + 1) << 28
+                | (long) halfMoves << 35;
+        ply++;
+
+        setEnPassant(NO_SQUARE);
+        halfMoves = 0;
+        if (turn.equals(Side.BLACK)) {
+            fullMoves++;
+        }
+        setTurn(turn.getOpposite());
+    }
+
+    /**
+     * <p>Takes back the null move of <code>makeNullMove</code>.</p>
+     */
+    public void unmakeNullMove() {
+        ply--;
+
+        long state = history[ply * 2 + 1];
+        turn = turn.getOpposite();
+        if (turn.equals(Side.BLACK)) {
+            fullMoves--;
+        }
+        enPassant = (int) (state >>> 28 & 0x7F) - 1;
+        halfMoves = (int) (state >>> 35);
+        key = history[ply * 2];
+    }
+
+    /**
+     * @return number of moves on the undo stack
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * <p>Evaluates if the position occurred before on the undo stack
+     * since the last capture or pawn move.</p>
+     * @return true if the key repeats
+     */
+    public boolean isRepetition() {
+        for (int i = ply - 2; i >= 0 && i >= ply - halfMoves; i -= 2) {
+            if (history[i * 2] == key) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * <p>Passes the turn to the opposite side.</p>
+     */
+    public void changeTurn() {
+        turn = turn.getOpposite();
+        key ^= Zobrist.getTurnKey();
+    }
+
+    /**
+     * <p>Copies the state of another position. The undo stack keeps the
+     * moves since the last capture or pawn move, at most <code>MAX_PLY / 2</code>,
+     * so repetitions of the game before the copy are still found. Only the
+     * first copy of moves allocates the undo stack.</p>
+     * @param position position to copy
+     */
+    public void set(Position position) {
+        for (int side = 0; side < SIDES.length; side++) {
+            System.arraycopy(position.figures[side], 0, figures[side], 0, RANKS.length);
+        }
+        System.arraycopy(position.sides, 0, sides, 0, SIDES.length);
+        System.arraycopy(position.squares, 0, squares, 0, squares.length);
+        occupied = position.occupied;
+        castling = position.castling;
+        enPassant = position.enPassant;
+        turn = position.turn;
+        halfMoves = position.halfMoves;
+        fullMoves = position.fullMoves;
+        key = position.key;
+        pawnKey = position.pawnKey;
+        middlegame = position.middlegame;
+        endgame = position.endgame;
+        phase = position.phase;
+        ply = Math.min(Math.min(position.ply, position.halfMoves), MAX_PLY / 2);
+        if (ply > 0) {
+            if (history == null) {
+                history = new long[MAX_PLY * 2];
+            }
+            System.arraycopy(position.history, (position.ply - ply) * 2, history, 0, ply * 2);
+        }
+        if (listener != null) {
+            setListener(listener);
+        }
+    }
+
+    /**
+     * <p>Tells the listener of every figure on the board, then of every
+     * figure put or removed until another listener is set.</p>
+     * @param listener listener of the figures or null
+     */
+    public void setListener(FigureListener listener) {
+        this.listener = listener;
+        if (listener != null) {
+            listener.clear();
+            for (int square = 0; square < 64; square++) {
+                if (squares[square] != EMPTY) {
+                    listener.put(squares[square], square);
+                }
+            }
+        }
+    }
+
+    public long getFigures(Side side, Rank rank) {
+        return figures[side.ordinal()][rank.ordinal()];
+    }
+
+    public long getSide(Side side) {
+        return sides[side.ordinal()];
+    }
+
+    public long getOccupied() {
+        return occupied;
+    }
+
+    public int getCastling() {
+        return castling;
+    }
+
+    public void setCastling(int castling) {
+        key ^= Zobrist.getCastlingKey(this.castling) ^ Zobrist.getCastlingKey(castling);
+        this.castling = castling;
+    }
+
+    /**
+     * @return square passed by a pawn's double step on the last move or <code>NO_SQUARE</code>
+     */
+    public int getEnPassant() {
+        return enPassant;
+    }
+
+    public void setEnPassant(int enPassant) {
+        key ^= Zobrist.getEnPassantKey(this.enPassant) ^ Zobrist.getEnPassantKey(enPassant);
+        this.enPassant = enPassant;
+    }
+
+    public Side getTurn() {
+        return turn;
+    }
+
+    public void setTurn(Side turn) {
+        if (!this.turn.equals(turn)) {
+            changeTurn();
+        }
+    }
+
+    /**
+     * <p>Zobrist key of the position, updated incrementally by every change.</p>
+     * @return key of the position
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * @return key of the pawns only, shared by positions with the same pawn structure
+     */
+    public long getPawnKey() {
+        return pawnKey;
+    }
+
+    /**
+     * @return middlegame material and piece-square score of white in centipawns
+     */
+    public int getMiddlegame() {
+        return middlegame;
+    }
+
+    /**
+     * @return endgame material and piece-square score of white in centipawns
+     */
+    public int getEndgame() {
+        return endgame;
+    }
+
+    /**
+     * @return game phase, see <code>PieceSquareTable.MAX_PHASE</code>
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    public int getHalfMoves() {
+        return halfMoves;
+    }
+
+    public void setHalfMoves(int halfMoves) {
+        this.halfMoves = halfMoves;
+    }
+
+    public int getFullMoves() {
+        return fullMoves;
+    }
+
+    public void setFullMoves(int fullMoves) {
+        this.fullMoves = fullMoves;
+    }
+
+    public int getPieceAt(int square) {
+        return squares[square];
+    }
+
+    public boolean isEmpty(int square) {
+        return squares[square] == EMPTY;
+    }
+
+    /**
+     * <p>Evaluates if a figure of the given side occupies the square.</p>
+     * @param side side to compare
+     * @param square ordinal value of the <code>Coordinate</code>
+     * @return true if the square is occupied by the side
+     */
+    public boolean isSide(Side side, int square) {
+        return (sides[side.ordinal()] & (1L << square)) != 0;
+    }
+
+    /**
+     * <p>Evaluates if the opposite king occupies the square.</p>
+     * @param side side of the selected figure
+     * @param square ordinal value of the <code>Coordinate</code>
+     * @return true if the square is occupied by the opposite king
+     */
+    public boolean isOppositeKing(Side side, int square) {
+        return (getOppositeKing(side) & (1L << square)) != 0;
+    }
+
+    /**
+     * <p>Evaluates if a figure occupies a square and is opposite side
+     * to the selected figure. King cannot be removed.</p>
+     * @param side side of the selected figure
+     * @param square ordinal value of the <code>Coordinate</code>
+     * @return true if the figure at the square is opposite side and not a king
+     */
+    public boolean isRemovable(Side side, int square) {
+        return (sides[1 - side.ordinal()] & ~getOppositeKing(side) & (1L << square)) != 0;
+    }
+
+    public long getOppositeKing(Side side) {
+        return figures[1 - side.ordinal()][Rank.KING.ordinal()];
+    }
+
+    /**
+     * <p>Squares a figure may move to: empty or held by a removable opponent.
+     * King cannot be removed.</p>
+     * @param side side of the selected figure
+     * @return bitboard of available destinations
+     */
+    public long getTargets(Side side) {
+        return ~(sides[side.ordinal()] | getOppositeKing(side));
+    }
+}
@@ -18,4 +18,8 @@ public enum Side {
     public String getSide() {
         return side;
     }
+
+    public Side getOpposite() {
+        return this == WHITE ? BLACK : WHITE;
+    }
 }
@@ -0,0 +1,152 @@
+package main.models;
+
+/**
+ * Immutable copy of a <code>Position</code> in nine <code>long</code>
+ * fields, 88 bytes with the object header, which can be shared between
+ * threads and used as a key of hash maps.
+ * <p>Figures are held as one bitboard per rank and one of the white
+ * figures. The side to move, castling rights, en passant square and move
+ * counters are packed into a single state:</p>
+ * <p>bit 0 side to move, bits 1-4 castling rights, bits 5-11 en passant
+ * square plus one, bits 12-27 half moves, bits 32-63 full moves</p>
+ * The Zobrist key of the position is kept for hashing. The undo stack of
+ * the position is not copied.
+ */
+public final class Snapshot {
+    private final long white;
+    private final long kings;
+    private final long queens;
+    private final long rooks;
+    private final long bishops;
+    private final long knights;
+    private final long pawns;
+    private final long state;
+    private final long key;
+
+    //
+    // Constructor
+    //
+    /**
+     * @param position position to copy
+     */
+    public Snapshot(Position position) {
+        this.white = position.getSide(Side.WHITE);
+        this.kings = getFigures(position, Rank.KING);
+        this.queens = getFigures(position, Rank.QUEEN);
+        this.rooks = getFigures(position, Rank.ROOK);
+        this.bishops = getFigures(position, Rank.BISHOP);
+        this.knights = getFigures(position, Rank.KNIGHT);
+        this.pawns = getFigures(position, Rank.PAWN);
+        this.state = position.getTurn().ordinal()
+                | (long) position.getCastling() << 1
+                | (long) (position.getEnPassant() + 1) << 5
+                | (long) (position.getHalfMoves() & 0xFFFF) << 12
+                | (long) position.getFullMoves() << 32;
+        this.key = position.getKey();
+    }
+
+    //
+    // Field initializers
+    //
+    private static long getFigures(Position position, Rank rank) {
+        return position.getFigures(Side.WHITE, rank) | position.getFigures(Side.BLACK, rank);
+    }
+
+    //
+    // Methods
+    //
+    /**
+     * <p>Builds a new mutable position with an empty undo stack.</p>
+     * @return position of the snapshot
+     */
+    public Position toPosition() {
+        Position position = new Position();
+
+        for (Rank rank : Rank.values()) {
+            for (long figures = getFigures(rank); figures != 0; figures &= figures - 1) {
+                int square = Long.numberOfTrailingZeros(figures);
+
+                position.put((white & (1L << square)) != 0 ? Side.WHITE : Side.BLACK, rank, square);
+            }
+        }
+        position.setTurn(getTurn());
+        position.setCastling(getCastling());
+        position.setEnPassant(getEnPassant());
+        position.setHalfMoves(getHalfMoves());
+        position.setFullMoves(getFullMoves());
+
+        return position;
+    }
+
+    public long getFigures(Side side, Rank rank) {
+        long figures = getFigures(rank);
+
+        return side.equals(Side.WHITE) ? figures & white : figures & ~white;
+    }
+
+    private long getFigures(Rank rank) {
+        return switch (rank) {
+            case KING -> kings;
+            case QUEEN -> queens;
+            case ROOK -> rooks;
+            case BISHOP -> bishops;
+            case KNIGHT -> knights;
+            case PAWN -> pawns;
+        };
+    }
+
+    public long getOccupied() {
+        return kings | queens | rooks | bishops | knights | pawns;
+    }
+
+    public Side getTurn() {
+        return (state & 1) == 0 ? Side.WHITE : Side.BLACK;
+    }
+
+    public int getCastling() {
+        return (int) (state >>> 1 & 0xF);
+    }
+
+    public int getEnPassant() {
+        return (int) (state >>> 5 & 0x7F) - 1;
+    }
+
+    public int getHalfMoves() {
+        return (int) (state >>> 12 & 0xFFFF);
+    }
+
+    public int getFullMoves() {
+        return (int) (state >>> 32);
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Snapshot s)) {
+            return false;
+        }
+
+        return key == s.key && state == s.state && white == s.white
+                && kings == s.kings && queens == s.queens && rooks == s.rooks
+                && bishops == s.bishops && knights == s.knights && pawns == s.pawns;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key);
+    }
+
+    /**
+     * @return FEN record of the snapshot
+     */
+    @Override
+    public String toString() {
+        return Fen.getFen(toPosition());
+    }
+}
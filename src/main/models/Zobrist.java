@@ -0,0 +1,106 @@
+package main.models;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys identifying a position by a single <code>long</code>.
+ * The key of a position is the XOR of the keys of every figure on its square,
+ * the castling rights, the en passant column and the side to move.
+ */
+public final class Zobrist {
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+
+    private static final long[][] FIGURES = new long[12][64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT = new long[8];
+    private static final long TURN;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+
+        for (long[] figure : FIGURES) {
+            for (int square = 0; square < figure.length; square++) {
+                figure[square] = random.nextLong();
+            }
+        }
+        for (int i = 0; i < CASTLING.length; i++) {
+            CASTLING[i] = random.nextLong();
+        }
+        for (int i = 0; i < EN_PASSANT.length; i++) {
+            EN_PASSANT[i] = random.nextLong();
+        }
+        TURN = random.nextLong();
+    }
+
+    private Zobrist() {}
+
+    /**
+     * @param piece piece value, see <code>Position.getPiece</code>
+     * @param square ordinal value of the <code>Coordinate</code>
+     * @return key of the figure on the square
+     */
+    public static long getFigureKey(int piece, int square) {
+        return FIGURES[piece][square];
+    }
+
+    public static long getCastlingKey(int castling) {
+        return CASTLING[castling];
+    }
+
+    /**
+     * @param enPassant en passant square or <code>Position.NO_SQUARE</code>
+     * @return key of the en passant column, 0 without en passant
+     */
+    public static long getEnPassantKey(int enPassant) {
+        return enPassant == Position.NO_SQUARE ? 0L : EN_PASSANT[enPassant & 7];
+    }
+
+    public static long getTurnKey() {
+        return TURN;
+    }
+
+    /**
+     * <p>Computes the key of a position from scratch.</p>
+     * @param position bitboard position
+     * @return key of the position
+     */
+    public static long getKey(Position position) {
+        long key = 0L;
+
+        for (int square = 0; square < 64; square++) {
+            int piece = position.getPieceAt(square);
+            if (piece != Position.EMPTY) {
+                key ^= FIGURES[piece][square];
+            }
+        }
+
+        key ^= CASTLING[position.getCastling()];
+        key ^= getEnPassantKey(position.getEnPassant());
+        if (position.getTurn().equals(Side.BLACK)) {
+            key ^= TURN;
+        }
+
+        return key;
+    }
+
+    /**
+     * <p>Computes the pawn key of a position from scratch.</p>
+     * @param position bitboard position
+     * @return key of the pawns of both sides
+     */
+    public static long getPawnKey(Position position) {
+        long key = 0L;
+
+        for (Side side : Side.values()) {
+            int piece = Position.getPiece(side, Rank.PAWN);
+            long pawns = position.getFigures(side, Rank.PAWN);
+
+            while (pawns != 0) {
+                key ^= FIGURES[piece][Long.numberOfTrailingZeros(pawns)];
+                pawns &= pawns - 1;
+            }
+        }
+
+        return key;
+    }
+}
@@ -1,278 +1,56 @@
 package main.models.movables;
 
-import main.models.Coordinate;
-import main.models.Figure;
-import main.models.Movable;
-import main.models.Rank;
-
-import java.awt.*;
-import java.util.HashMap;
-import java.util.HashSet;
-
-public class Bishop implements Movable {
-    private static final int LEFT_UP = -9;
-    private static final int RIGHT_UP = -7;
-    private static final int LEFT_DOWN = 7;
-    private static final int RIGHT_DOWN = 9;
-
-    private final HashMap<Coordinate, Figure> figures;
-    private final HashMap<Point, Coordinate> coordinates;
-
-    public Bishop(HashMap<Coordinate, Figure> figures,
-                  HashMap<Point, Coordinate> coordinates) {
-        this.figures = figures;
-        this.coordinates = coordinates;
-    }
-
-    /**
-     * <p>Evaluates if a figure occupies a coordinate
-     * and is opposite side to the selected figure.
-     * King cannot be removed.</p>
-     *
-     * @param selected <code>Figure</code> to move
-     * @param c        <code>Coordinate</code> to move to
-     * @return true if the figure at the <code>Coordinate</code>
-     * is opposite side and not a king
-     */
-    private boolean isRemovable(Figure selected, Coordinate c) {
-        Figure contested = figures.get(c);
-
-        return contested != null
-                && !(contested.getSide().equals(selected.getSide()))
-                && !(contested.getRank().equals(Rank.KING));
-    }
-
-    /**
-     * <p>Evaluates if a figure occupies a coordinate
-     * and is on the same side to the selected figure.
-     * King cannot be removed.</p>
-     *
-     * @param selected <code>Figure</code> to move
-     * @param c        <code>Coordinate</code> to move to
-     * @return true if opposing figure occupies position
-     */
-    private boolean isProtected(Figure selected, Coordinate c) {
-        Figure contested = figures.get(c);
-
-        return contested != null
-                && contested.getSide().equals(selected.getSide());
-    }
-
-    /**
-     * <p>Evaluates if opposite side king occupies a coordinate.</p>
-     * @param selected selected figure on board
-     * @param c currently evaluated position
-     * @return true if an opposite king occupies position
-     */
-    private boolean isOppositeKing(Figure selected, Coordinate c) {
-        Figure contested = figures.get(c);
-
-        return contested != null
-                && contested.getRank().equals(Rank.KING)
-                && !(contested.getSide().equals(selected.getSide()));
-    }
+import main.models.Move;
+import main.models.Position;
+import main.models.Side;
+
+public final class Bishop {
+    private static final long[] MAGIC_NUMBERS = {
+            0x0538201902690300L, 0x08A0080224484004L, 0x8004214202040010L, 0x1008204040408100L,
+            0x0202021120805E20L, 0x3090882440800822L, 0x0000821002A08000L, 0x0081024050043008L,
+            0x800008202840C100L, 0x080488080800604CL, 0xA348424881010020L, 0x0424090403000200L,
+            0x00280C0520132049L, 0x0030A20804040A11L, 0x0000841241042008L, 0x00200100880402A0L,
+            0x0044005071100100L, 0x0010000410820448L, 0x4148060102002200L, 0x4002000440110000L,
+            0x11A100C82008400CL, 0x0002006040422001L, 0x0000450098080800L, 0x004080C210C51810L,
+            0x4002402010110200L, 0x0018044008014800L, 0x100410001200E8C0L, 0x01A4040000401080L,
+            0x2481010000104010L, 0x0501084028080800L, 0x100C294100884400L, 0x1A80808248241410L,
+            0x0104104000080200L, 0x0500880800208220L, 0x8404002080040102L, 0x0400400A00002200L,
+            0x8040010200010880L, 0x40050808A2020204L, 0xC042280042612404L, 0x8001020030020102L,
+            0x0008040368242080L, 0x8240423090000401L, 0xA202110801000810L, 0x0000044010401200L,
+            0x2980885100400C00L, 0x4110200089000024L, 0x0020040440508480L, 0x300112008A040100L,
+            0x0902008404408000L, 0x800201068610521CL, 0x80000044040420ACL, 0x0029400042020220L,
+            0x0411001002020484L, 0x100608504182010CL, 0x5120020421040100L, 0x8402A20202020C00L,
+            0x0430108201104000L, 0x4887382082101004L, 0x0440444200922101L, 0x000000004042020AL,
+            0x8820001011202204L, 0x00000048A0080880L, 0x0002A12002008900L, 0x1002822A08020880L
+    };
+    private static final Magics MAGICS = new Magics(
+            new int[][] {{-1, -1}, {1, -1}, {-1, 1}, {1, 1}},
+            MAGIC_NUMBERS);
+
+    private Bishop() {}
 
     /**
-     * Checks if any figure occupies a given position.
-     *
-     * @param c <code>Coordinate</code> to move to
-     * @return false when a <code>Figure</code> occupies <code>Coordinate</code>
+     * <p>Writes packed moves of the bishop to the buffer.</p>
+     * @param position bitboard position
+     * @param side side of the bishop
+     * @param square ordinal value of the bishop's <code>Coordinate</code>
+     * @param moves buffer of packed moves
+     * @param index first free index of the buffer
+     * @return index after the last written move
      */
-    private boolean isEmpty(Coordinate c) {
-        return figures.get(c) == null;
-    }
-
-    /**
-     * <p>Checks for valid moves for a given figure.</p>
-     *
-     * @param figure to be moved
-     */
-    @Override
-    public HashSet<Coordinate> getMoves(Figure figure) {
-        Coordinate position = coordinates.get(figure.getLocation());
-        HashSet<Coordinate> moves = new HashSet<>();
-        Coordinate c;
-
-        // Left-up
-        c = Coordinate.getCoordinate(position.ordinal() + LEFT_UP);
-        while (c != null && (isEmpty(c) || isRemovable(figure, c))
-                && !Coordinate.isLeftBoundary(position)) {
-            moves.add(c);
-            if (Coordinate.isBoundary(c) || isRemovable(figure, c)) { break; }
-            c = Coordinate.getCoordinate(c.ordinal() + LEFT_UP);
-        }
+    public static int addMoves(Position position, Side side, int square, int[] moves, int index) {
+        long targets = getAttacks(square, position.getOccupied()) & position.getTargets(side);
 
-        // Left-down
-        c = Coordinate.getCoordinate(position.ordinal() + LEFT_DOWN);
-        while (c != null && (isEmpty(c) || isRemovable(figure, c))
-                && !Coordinate.isLeftBoundary(position)) {
-            moves.add(c);
-            if (Coordinate.isBoundary(c) || isRemovable(figure, c)) { break; }
-            c = Coordinate.getCoordinate(c.ordinal() + LEFT_DOWN);
-        }
-
-        // Right-up
-        c = Coordinate.getCoordinate(position.ordinal() + RIGHT_UP);
-        while (c != null && (isEmpty(c) || isRemovable(figure, c))
-                && !Coordinate.isRightBoundary(position)) {
-            moves.add(c);
-            if (Coordinate.isBoundary(c) || isRemovable(figure, c)) { break; }
-            c = Coordinate.getCoordinate(c.ordinal() + RIGHT_UP);
-        }
-
-        // Right-down
-        c = Coordinate.getCoordinate(position.ordinal() + RIGHT_DOWN);
-        while (c != null && (isEmpty(c) || isRemovable(figure, c))
-                && !Coordinate.isRightBoundary(position)) {
-            moves.add(c);
-            if (Coordinate.isBoundary(c) || isRemovable(figure, c)) { break; }
-            c = Coordinate.getCoordinate(c.ordinal() + RIGHT_DOWN);
-        }
-
-        return moves;
+        return Move.addMoves(position, square, targets, moves, index);
     }
 
     /**
-     * <p>Checks for valid moves for a given figure.</p>
-     *
-     * @param selectedFigure to be moved
+     * <p>Looks up squares attacked along the bishop's rays.</p>
+     * @param square ordinal value of the bishop's <code>Coordinate</code>
+     * @param occupied bitboard of blocking figures
+     * @return bitboard of attacked squares
      */
-    @Override
-    public HashSet<Coordinate> getControlledMoves(Figure selectedFigure) {
-        Coordinate position = coordinates.get(selectedFigure.getLocation());
-        HashSet<Coordinate> moves = new HashSet<>();
-        Coordinate c;
-
-        // Left-up
-        c = Coordinate.getCoordinate(position.ordinal() + LEFT_UP);
-        while (c != null && !Coordinate.isLeftBoundary(position)) {
-            moves.add(c);
-            if (Coordinate.isBoundary(c)
-                    || isProtected(selectedFigure, c)
-                    || isRemovable(selectedFigure, c)
-            ) { break; }
-            c = Coordinate.getCoordinate(c.ordinal() + LEFT_UP);
-        }
-
-        // Left-down
-        c = Coordinate.getCoordinate(position.ordinal() + LEFT_DOWN);
-        while (c != null && !Coordinate.isLeftBoundary(position)
-                && (isEmpty(c) || isProtected(selectedFigure, c) || isOppositeKing(selectedFigure, c))) {
-            moves.add(c);
-            if (Coordinate.isBoundary(c)
-                    || isProtected(selectedFigure, c)
-                    || isRemovable(selectedFigure, c)
-            ) { break; }
-            c = Coordinate.getCoordinate(c.ordinal() + LEFT_DOWN);
-        }
-
-        // Right-up
-        c = Coordinate.getCoordinate(position.ordinal() + RIGHT_UP);
-        while (c != null && !Coordinate.isRightBoundary(position)) {
-            moves.add(c);
-            if (Coordinate.isBoundary(c)
-                    || isProtected(selectedFigure, c)
-                    || isRemovable(selectedFigure, c)
-            ) { break; }
-            c = Coordinate.getCoordinate(c.ordinal() + RIGHT_UP);
-        }
-
-        // Right-down
-        c = Coordinate.getCoordinate(position.ordinal() + RIGHT_DOWN);
-        while (c != null && !Coordinate.isRightBoundary(position)) {
-            moves.add(c);
-            if (Coordinate.isBoundary(c)
-                    || isProtected(selectedFigure, c)
-                    || isRemovable(selectedFigure, c)
-            ) { break; }
-            c = Coordinate.getCoordinate(c.ordinal() + RIGHT_DOWN);
-        }
-
-        return moves;
-    }
-
-    @Override
-    public HashSet<Coordinate> getCheckMoves(Figure selectedFigure) {
-        Coordinate position = coordinates.get(selectedFigure.getLocation());
-        HashSet<Coordinate> moves = new HashSet<>();
-        Coordinate c;
-        int removable = 0;
-
-        // Left-up
-        c = Coordinate.getCoordinate(position.ordinal() + LEFT_UP);
-        while (c != null && !(Coordinate.isLeftBoundary(position) && isProtected(selectedFigure, c))) {
-            if (isRemovable(selectedFigure, c)) {
-                removable++;
-            }
-            if (isOppositeKing(selectedFigure, c) && removable <= 1) {
-                moves.add(position);
-                return moves;
-            }
-            moves.add(c);
-            if (Coordinate.isBoundary(c)) {
-                break;
-            }
-            c = Coordinate.getCoordinate(c.ordinal() + LEFT_UP);
-        }
-        moves.clear();
-        removable = 0;
-
-        // Left-down
-        c = Coordinate.getCoordinate(position.ordinal() + LEFT_DOWN);
-        while (c != null && !(Coordinate.isLeftBoundary(position) && isProtected(selectedFigure, c))) {
-            if (isRemovable(selectedFigure, c)) {
-                removable++;
-            }
-            if (isOppositeKing(selectedFigure, c) && removable <= 1) {
-                moves.add(position);
-                return moves;
-            }
-            moves.add(c);
-            if (Coordinate.isBoundary(c)) {
-                break;
-            }
-            c = Coordinate.getCoordinate(c.ordinal() + LEFT_DOWN);
-        }
-        moves.clear();
-        removable = 0;
-
-        // Right-up
-        c = Coordinate.getCoordinate(position.ordinal() + RIGHT_UP);
-        while (c != null && !(Coordinate.isRightBoundary(position) || isProtected(selectedFigure, c))) {
-            if (isRemovable(selectedFigure, c)) {
-                removable++;
-            }
-            if (isOppositeKing(selectedFigure, c) && removable <= 1) {
-                moves.add(position);
-                return moves;
-            }
-            moves.add(c);
-            if (Coordinate.isBoundary(c)) {
-                break;
-            }
-            c = Coordinate.getCoordinate(c.ordinal() + RIGHT_UP);
-        }
-        moves.clear();
-        removable = 0;
-
-        // Right-down
-        c = Coordinate.getCoordinate(position.ordinal() + RIGHT_DOWN);
-        while (c != null && !(Coordinate.isRightBoundary(position) || isProtected(selectedFigure, c))) {
-            if (isRemovable(selectedFigure, c)) {
-                removable++;
-            }
-            if (isOppositeKing(selectedFigure, c) && removable <= 1) {
-                moves.add(position);
-                return moves;
-            }
-            moves.add(c);
-            if (Coordinate.isBoundary(c)) {
-                break;
-            }
-            c = Coordinate.getCoordinate(c.ordinal() + RIGHT_DOWN);
-        }
-        moves.clear();
-
-        return moves;
+    public static long getAttacks(int square, long occupied) {
+        return MAGICS.getAttacks(square, occupied);
     }
 }
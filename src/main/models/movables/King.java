@@ -1,262 +1,85 @@
 package main.models.movables;
 
+import main.models.Bitboards;
 import main.models.Coordinate;
-import main.models.Figure;
-import main.models.Movable;
-import main.models.Rank;
+import main.models.Move;
+import main.models.Position;
+import main.models.Side;
 
-import java.awt.*;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.function.Predicate;
+public final class King {
+    private static final long[] ATTACKS = setAttacks();
 
-public class King implements Movable {
-    private static final int UP = -8;
-    private static final int DOWN = 8;
-    private static final int LEFT = -1;
-    private static final int RIGHT = 1;
-    private static final int LEFT_UP = -9;
-    private static final int RIGHT_UP = -7;
-    private static final int LEFT_DOWN = 7;
-    private static final int RIGHT_DOWN = 9;
-
-    private final HashMap<Coordinate, Figure> figures;
-    private final HashMap<Point, Coordinate> coordinates;
-
-    public King(HashMap<Coordinate, Figure> figures,
-                HashMap<Point, Coordinate> coordinates) {
-        this.figures = figures;
-        this.coordinates = coordinates;
-    }
-
-    /**
-     * <p>Evaluates if a figure occupies a coordinate
-     * and is opposite side to the selected figure.
-     * King cannot be removed.</p>
-     *
-     * @param selected <code>Figure</code> to move
-     * @param c        <code>Coordinate</code> to move to
-     * @return true if opposing figure occupies position
-     */
-    private boolean isRemovable(Figure selected, Coordinate c) {
-        Figure contested = figures.get(c);
-
-        return contested != null
-                && !(contested.getSide().equals(selected.getSide()))
-                && !(contested.getRank().equals(Rank.KING));
-    }
+    private King() {}
 
     /**
-     * Checks if any figure occupies a given position.
-     *
-     * @param c <code>Coordinate</code> to move to
-     * @return false when a <code>Figure</code> occupies <code>Coordinate</code>
+     * <p>Writes packed moves of the king to the buffer, including castle
+     * moves when the rights remain, the path is empty and the king
+     * neither stands in, passes through nor lands on a controlled square.</p>
+     * @param position bitboard position
+     * @param side side of the king
+     * @param square ordinal value of the king's <code>Coordinate</code>
+     * @param moves buffer of packed moves
+     * @param index first free index of the buffer
+     * @return index after the last written move
      */
-    private boolean isEmpty(Coordinate c) {
-        return figures.get(c) == null;
-    }
-
-    /**
-     * <p>Checks for valid moves for a given figure.</p>
-     *
-     * @param selectedFigure to be moved
-     */
-    public HashSet<Coordinate> getMoves(Figure selectedFigure) {
-        Coordinate position = coordinates.get(selectedFigure.getLocation());
-        HashSet<Coordinate> moves = new HashSet<>();
-        Coordinate c;
-
-        // Up
-        c = Coordinate.getCoordinate(position.ordinal() + UP);
-        if (c != null && (isEmpty(c) || isRemovable(selectedFigure, c))) {
-            moves.add(c);
-        }
-        // Down
-        c = Coordinate.getCoordinate(position.ordinal() + DOWN);
-        if (c != null && (isEmpty(c) || isRemovable(selectedFigure, c))) {
-            moves.add(c);
-        }
-
-        // Left boundary
-        if (!Coordinate.isLeftBoundary(position)) {
-            // Left
-            c = Coordinate.getCoordinate(position.ordinal() + LEFT);
-            if (isEmpty(c) || isRemovable(selectedFigure, c)) {
-                moves.add(c);
-            }
-            // Left-up
-            c = Coordinate.getCoordinate(position.ordinal() + LEFT_UP);
-            if (c != null && (isEmpty(c) || isRemovable(selectedFigure, c))) {
-                moves.add(c);
-            }
-            // Left-down
-            c = Coordinate.getCoordinate(position.ordinal() + LEFT_DOWN);
-            if (c != null && (isEmpty(c) || isRemovable(selectedFigure, c))) {
-                moves.add(c);
-            }
-        }
-
-        // Right boundary
-        if (!Coordinate.isRightBoundary(position)) {
-            // Right
-            c = Coordinate.getCoordinate(position.ordinal() + RIGHT);
-            if (isEmpty(c) || isRemovable(selectedFigure, c)) {
-                moves.add(c);
-            }
-            // Right-up
-            c = Coordinate.getCoordinate(position.ordinal() + RIGHT_UP);
-            if (c != null && (isEmpty(c) || isRemovable(selectedFigure, c))) {
-                moves.add(c);
-            }
-            // Right-down
-            c = Coordinate.getCoordinate(position.ordinal() + RIGHT_DOWN);
-            if (c != null && (isEmpty(c) || isRemovable(selectedFigure, c))) {
-                moves.add(c);
-            }
-        }
-
-        return moves;
-    }
-
-
-    public HashSet<Coordinate> getControlledMoves(Figure selectedFigure) {
-        Coordinate position = coordinates.get(selectedFigure.getLocation());
-        HashSet<Coordinate> moves = new HashSet<>();
-        Coordinate c;
-
-        // Up
-        c = Coordinate.getCoordinate(position.ordinal() + UP);
-        if (c != null) {
-            moves.add(c);
-        }
-        // Down
-        c = Coordinate.getCoordinate(position.ordinal() + DOWN);
-        if (c != null) {
-            moves.add(c);
+    public static int addMoves(Position position, Side side, int square, int[] moves, int index) {
+        index = Move.addMoves(position, square, ATTACKS[square] & position.getTargets(side), moves, index);
+
+        boolean white = side.equals(Side.WHITE);
+        int home = white ? Coordinate.A5.ordinal() : Coordinate.H5.ordinal();
+        int smallCastle = white ? Position.WHITE_SMALL_CASTLE : Position.BLACK_SMALL_CASTLE;
+        int bigCastle = white ? Position.WHITE_BIG_CASTLE : Position.BLACK_BIG_CASTLE;
+        int castling = position.getCastling() & (smallCastle | bigCastle);
+        Side opponent = side.getOpposite();
+
+        if (castling == 0 || square != home
+                || MoveGenerator.isAttacked(position, home, opponent)) {
+            return index;
         }
 
-        // Left boundary
-        if (! Coordinate.isLeftBoundary(position)) {
-            // Left
-            c = Coordinate.getCoordinate(position.ordinal() + LEFT);
-            moves.add(c);
-            // Left-up
-            c = Coordinate.getCoordinate(position.ordinal() + LEFT_UP);
-            if (c != null) {
-                moves.add(c);
-            }
-            // Left-down
-            c = Coordinate.getCoordinate(position.ordinal() + LEFT_DOWN);
-            if (c != null) {
-                moves.add(c);
-            }
+        long occupied = position.getOccupied();
+        if ((castling & smallCastle) != 0
+                && (occupied & (3L << (home + 1))) == 0
+                && !MoveGenerator.isAttacked(position, home + 1, opponent)
+                && !MoveGenerator.isAttacked(position, home + 2, opponent)) {
+            moves[index++] = Move.getMove(home, home + 2, Move.CASTLE);
         }
-
-        // Right boundary
-        if (! Coordinate.isRightBoundary(position)) {
-            // Right
-            c = Coordinate.getCoordinate(position.ordinal() + RIGHT);
-            moves.add(c);
-            // Right-up
-            c = Coordinate.getCoordinate(position.ordinal() + RIGHT_UP);
-            if (c != null) {
-                moves.add(c);
-            }
-            // Right-down
-            c = Coordinate.getCoordinate(position.ordinal() + RIGHT_DOWN);
-            if (c != null) {
-                moves.add(c);
-            }
+        if ((castling & bigCastle) != 0
+                && (occupied & (7L << (home - 3))) == 0
+                && !MoveGenerator.isAttacked(position, home - 1, opponent)
+                && !MoveGenerator.isAttacked(position, home - 2, opponent)) {
+            moves[index++] = Move.getMove(home, home - 2, Move.CASTLE);
         }
 
-        return moves;
+        return index;
     }
 
     /**
-     * King cannot check on his own.
-     * @param figure selected figure
-     * @return empty set
+     * <p>Looks up squares attacked by the king.</p>
+     * @param square ordinal value of the king's <code>Coordinate</code>
+     * @return bitboard of attacked squares
      */
-    public HashSet<Coordinate> getCheckMoves(Figure figure) {
-        return new HashSet<>();
+    public static long getAttacks(int square) {
+        return ATTACKS[square];
     }
 
-    // TODO create method for castling here
-    // check if rooks have moved and the path between king
-    // and rook must not be controlled by opposing figure
-    public HashSet<Coordinate> getBigCastleMove(Figure selectedFigure,
-                                                HashSet<Coordinate> controlledMoves) {
-        HashSet<Coordinate> moves = new HashSet<>();
-        HashSet<Coordinate> whiteCastleArea = new HashSet<>(java.util.List.of(
-                Coordinate.A1,
-                Coordinate.A2,
-                Coordinate.A3,
-                Coordinate.A4,
-                Coordinate.A5));
-        HashSet<Coordinate> blackCastleArea = new HashSet<>(java.util.List.of(
-                Coordinate.H1,
-                Coordinate.H2,
-                Coordinate.H3,
-                Coordinate.H4,
-                Coordinate.H5));
-
-        switch (selectedFigure.getSide()) {
-            case WHITE -> {
-                // TODO add controlled moves check if the path is safe
-                Figure rightRook = figures.get(Coordinate.A1);
-
-                if (rightRook != null && !rightRook.hasMoved()
-                        && controlledMoves.stream().noneMatch(whiteCastleArea::contains)) {
-                    moves.add(Coordinate.A3);
-                }
-            }
-            case BLACK -> {
-                Figure rightRook = figures.get(Coordinate.H1);
-
-                if (rightRook != null && !rightRook.hasMoved()
-                        && controlledMoves.stream().noneMatch(blackCastleArea::contains)) {
-                    moves.add(Coordinate.H3);
-                }
-            }
-        }
-
-        return moves;
-    }
-
-    public HashSet<Coordinate> getSmallCastleMove(Figure selectedFigure,
-                                                  HashSet<Coordinate> controlledMoves) {
-        HashSet<Coordinate> moves = new HashSet<>();
-        HashSet<Coordinate> whiteCastleArea = new HashSet<>(java.util.List.of(
-                Coordinate.A5,
-                Coordinate.A6,
-                Coordinate.A7,
-                Coordinate.A8));
-        HashSet<Coordinate> blackCastleArea = new HashSet<>(List.of(
-                Coordinate.H5,
-                Coordinate.H6,
-                Coordinate.H7,
-                Coordinate.H8));
-
-        switch (selectedFigure.getSide()) {
-            case WHITE -> {
-                Figure leftRook = figures.get(Coordinate.A8);
-
-                if (leftRook != null && !leftRook.hasMoved()
-                        && controlledMoves.stream().noneMatch(whiteCastleArea::contains)) {
-                    moves.add(Coordinate.A7);
-                }
-            }
-            case BLACK -> {
-                Figure leftRook = figures.get(Coordinate.H8);
-
-                if (leftRook != null && !leftRook.hasMoved()
-                        && controlledMoves.stream().noneMatch(blackCastleArea::contains)) {
-                    moves.add(Coordinate.H7);
+    /**
+     * <p>Precomputes king attacks from every square of the board.</p>
+     * @return bitboards of attacked squares indexed by square
+     */
+    private static long[] setAttacks() {
+        long[] attacks = new long[64];
+
+        for (int square = 0; square < attacks.length; square++) {
+            for (int row = -1; row <= 1; row++) {
+                for (int column = -1; column <= 1; column++) {
+                    if (row != 0 || column != 0) {
+                        attacks[square] |= Bitboards.getStep(square, row, column);
+                    }
                 }
             }
         }
 
-        return moves;
+        return attacks;
     }
 }
@@ -1,274 +1,57 @@
 package main.models.movables;
 
-import main.models.Coordinate;
-import main.models.Figure;
-import main.models.Movable;
-import main.models.Rank;
+import main.models.Bitboards;
+import main.models.Move;
+import main.models.Position;
+import main.models.Side;
 
-import java.awt.*;
-import java.util.HashMap;
-import java.util.HashSet;
+public final class Knight {
+    private static final long[] ATTACKS = setAttacks();
 
-public class Knight implements Movable {
-    private static final int UP_LEFT = -17;
-    private static final int LEFT_UP = -10;
-    private static final int LEFT_DOWN = 6;
-    private static final int DOWN_LEFT = 15;
-    private static final int UP_RIGHT = -15;
-    private static final int RIGHT_UP = -6;
-    private static final int RIGHT_DOWN = 10;
-    private static final int DOWN_RIGHT = 17;
-    private static final int LEFT = -1;
-    private static final int RIGHT = 1;
-
-    private final HashMap<Coordinate, Figure> figures;
-    private final HashMap<Point, Coordinate> coordinates;
-
-    public Knight(HashMap<Coordinate, Figure> figures,
-                  HashMap<Point, Coordinate> coordinates) {
-        this.figures = figures;
-        this.coordinates = coordinates;
-    }
-
-    /**
-     * <p>Evaluates if a figure occupies a coordinate
-     * and is opposite side to the selected figure.
-     * King cannot be removed.</p>
-     *
-     * @param selected <code>Figure</code> to move
-     * @param c        <code>Coordinate</code> to move to
-     * @return true if the figure at the <code>Coordinate</code>
-     * is opposite side and not a king
-     */
-    private boolean isRemovable(Figure selected, Coordinate c) {
-        Figure contested = figures.get(c);
-
-        return contested != null
-                && !(contested.getSide().equals(selected.getSide()))
-                && !(contested.getRank().equals(Rank.KING));
-    }
+    private Knight() {}
 
     /**
-     * <p>Evaluates if opposite side king occupies a coordinate.</p>
-     * @param selected selected figure on board
-     * @param c currently evaluated position
-     * @return true if an opposite king occupies position
+     * <p>Writes packed moves of the knight to the buffer.</p>
+     * @param position bitboard position
+     * @param side side of the knight
+     * @param square ordinal value of the knight's <code>Coordinate</code>
+     * @param moves buffer of packed moves
+     * @param index first free index of the buffer
+     * @return index after the last written move
      */
-    private boolean isOppositeKing(Figure selected, Coordinate c) {
-        Figure contested = figures.get(c);
+    public static int addMoves(Position position, Side side, int square, int[] moves, int index) {
+        long targets = ATTACKS[square] & position.getTargets(side);
 
-        return contested != null
-                && contested.getRank().equals(Rank.KING)
-                && !(contested.getSide().equals(selected.getSide()));
+        return Move.addMoves(position, square, targets, moves, index);
     }
 
     /**
-     * Checks if any figure occupies a given position.
-     *
-     * @param c <code>Coordinate</code> to move to
-     * @return false when a <code>Figure</code> occupies <code>Coordinate</code>
+     * <p>Looks up squares attacked by the knight.</p>
+     * @param square ordinal value of the knight's <code>Coordinate</code>
+     * @return bitboard of attacked squares
      */
-    private boolean isEmpty(Coordinate c) {
-        return figures.get(c) == null;
+    public static long getAttacks(int square) {
+        return ATTACKS[square];
     }
 
     /**
-     * <p>Checks for valid moves for a given figure.</p>
-     *
-     * @param selectedFigure to be moved
+     * <p>Precomputes knight attacks from every square of the board.</p>
+     * @return bitboards of attacked squares indexed by square
      */
-    @Override
-    public HashSet<Coordinate> getMoves(Figure selectedFigure) {
-        Coordinate position = coordinates.get(selectedFigure.getLocation());
-        HashSet<Coordinate> moves = new HashSet<>();
-        Coordinate c;
-
-        // Left side
-        if (! Coordinate.isLeftBoundary(position)) {
-            // Up-left
-            c = Coordinate.getCoordinate(position.ordinal() + UP_LEFT);
-            if (c != null && (isRemovable(selectedFigure, c) || isEmpty(c))) {
-                moves.add(c);
-            }
-            // Down-left
-            c = Coordinate.getCoordinate(position.ordinal() + DOWN_LEFT);
-            if (c != null && (isRemovable(selectedFigure, c) || isEmpty(c))) {
-                moves.add(c);
-            }
-
-            c = Coordinate.getCoordinate(position.ordinal() + LEFT); // Offset
-            if (c != null && !Coordinate.isLeftBoundary(c)) {
-                // Left-up
-                c = Coordinate.getCoordinate(position.ordinal() + LEFT_UP);
-                if (c != null && (isRemovable(selectedFigure, c) || isEmpty(c))) {
-                    moves.add(c);
-                }
-                // Left-down
-                c = Coordinate.getCoordinate(position.ordinal() + LEFT_DOWN);
-                if (c != null && (isRemovable(selectedFigure, c) || isEmpty(c))) {
-                    moves.add(c);
-                }
-            }
-        }
-
-        // Right side
-        if (! Coordinate.isRightBoundary(position)) {
-            // Up-right
-            c = Coordinate.getCoordinate(position.ordinal() + UP_RIGHT);
-            if (c != null && (isRemovable(selectedFigure, c) || isEmpty(c))) {
-                moves.add(c);
-            }
-            // Down-right
-            c = Coordinate.getCoordinate(position.ordinal() + DOWN_RIGHT);
-            if (c != null && (isRemovable(selectedFigure, c) || isEmpty(c))) {
-                moves.add(c);
-            }
-
-            c = Coordinate.getCoordinate(position.ordinal() + RIGHT); // Offset
-            if (c != null && !Coordinate.isRightBoundary(c)) {
-                // Right-up
-                c = Coordinate.getCoordinate(position.ordinal() + RIGHT_UP);
-                if (c != null && (isRemovable(selectedFigure, c) || isEmpty(c))) {
-                    moves.add(c);
-                }
-                // Right-down
-                c = Coordinate.getCoordinate(position.ordinal() + RIGHT_DOWN);
-                if (c != null && (isRemovable(selectedFigure, c) || isEmpty(c))) {
-                    moves.add(c);
-                }
-            }
-        }
-
-        return moves;
-    }
-
-    @Override
-    public HashSet<Coordinate> getControlledMoves(Figure selectedFigure) {
-        Coordinate position = coordinates.get(selectedFigure.getLocation());
-        HashSet<Coordinate> moves = new HashSet<>();
-        Coordinate c;
-
-        // Left side
-        if (! Coordinate.isLeftBoundary(position)) {
-            // Up-left
-            c = Coordinate.getCoordinate(position.ordinal() + UP_LEFT);
-            if (c != null) {
-                moves.add(c);
-            }
-            // Down-left
-            c = Coordinate.getCoordinate(position.ordinal() + DOWN_LEFT);
-            if (c != null) {
-                moves.add(c);
-            }
-
-            c = Coordinate.getCoordinate(position.ordinal() + LEFT); // Offset
-            if (c != null && !Coordinate.isLeftBoundary(c)) {
-                // Left-up
-                c = Coordinate.getCoordinate(position.ordinal() + LEFT_UP);
-                if (c != null) {
-                    moves.add(c);
-                }
-                // Left-down
-                c = Coordinate.getCoordinate(position.ordinal() + LEFT_DOWN);
-                if (c != null) {
-                    moves.add(c);
-                }
-            }
-        }
-
-        // Right side
-        if (! Coordinate.isRightBoundary(position)) {
-            // Up-right
-            c = Coordinate.getCoordinate(position.ordinal() + UP_RIGHT);
-            if (c != null) {
-                moves.add(c);
-            }
-            // Down-right
-            c = Coordinate.getCoordinate(position.ordinal() + DOWN_RIGHT);
-            if (c != null) {
-                moves.add(c);
-            }
-
-            c = Coordinate.getCoordinate(position.ordinal() + RIGHT); // Offset
-            if (c != null && !Coordinate.isRightBoundary(c)) {
-                // Right-up
-                c = Coordinate.getCoordinate(position.ordinal() + RIGHT_UP);
-                if (c != null) {
-                    moves.add(c);
-                }
-                // Right-down
-                c = Coordinate.getCoordinate(position.ordinal() + RIGHT_DOWN);
-                if (c != null) {
-                    moves.add(c);
-                }
-            }
-        }
-
-        return moves;
-    }
-
-    @Override
-    public HashSet<Coordinate> getCheckMoves(Figure selectedFigure) {
-        Coordinate position = coordinates.get(selectedFigure.getLocation());
-        HashSet<Coordinate> moves = new HashSet<>();
-        Coordinate c;
-
-        // Left side
-        if (! Coordinate.isLeftBoundary(position)) {
-            // Up-left
-            c = Coordinate.getCoordinate(position.ordinal() + UP_LEFT);
-            if (c != null && isOppositeKing(selectedFigure, c)) {
-                moves.add(position);
-            }
-            // Down-left
-            c = Coordinate.getCoordinate(position.ordinal() + DOWN_LEFT);
-            if (c != null && isOppositeKing(selectedFigure, c)) {
-                moves.add(position);
-            }
-
-            c = Coordinate.getCoordinate(position.ordinal() + LEFT); // Offset
-            if (c != null && !Coordinate.isLeftBoundary(c)) {
-                // Left-up
-                c = Coordinate.getCoordinate(position.ordinal() + LEFT_UP);
-                if (c != null  && isOppositeKing(selectedFigure, c)) {
-                    moves.add(position);
-                }
-                // Left-down
-                c = Coordinate.getCoordinate(position.ordinal() + LEFT_DOWN);
-                if (c != null  && isOppositeKing(selectedFigure, c)) {
-                    moves.add(position);
-                }
-            }
-        }
-
-        // Right side
-        if (! Coordinate.isRightBoundary(position)) {
-            // Up-right
-            c = Coordinate.getCoordinate(position.ordinal() + UP_RIGHT);
-            if (c != null  && isOppositeKing(selectedFigure, c)) {
-                moves.add(position);
-            }
-            // Down-right
-            c = Coordinate.getCoordinate(position.ordinal() + DOWN_RIGHT);
-            if (c != null  && isOppositeKing(selectedFigure, c)) {
-                moves.add(position);
-            }
-
-            c = Coordinate.getCoordinate(position.ordinal() + RIGHT); // Offset
-            if (c != null && !Coordinate.isRightBoundary(c)) {
-                // Right-up
-                c = Coordinate.getCoordinate(position.ordinal() + RIGHT_UP);
-                if (c != null  && isOppositeKing(selectedFigure, c)) {
-                    moves.add(position);
-                }
-                // Right-down
-                c = Coordinate.getCoordinate(position.ordinal() + RIGHT_DOWN);
-                if (c != null  && isOppositeKing(selectedFigure, c)) {
-                    moves.add(position);
-                }
-            }
+    private static long[] setAttacks() {
+        long[] attacks = new long[64];
+
+        for (int square = 0; square < attacks.length; square++) {
+            attacks[square] = Bitboards.getStep(square, -2, -1)
+                    | Bitboards.getStep(square, -1, -2)
+                    | Bitboards.getStep(square, 1, -2)
+                    | Bitboards.getStep(square, 2, -1)
+                    | Bitboards.getStep(square, -2, 1)
+                    | Bitboards.getStep(square, -1, 2)
+                    | Bitboards.getStep(square, 1, 2)
+                    | Bitboards.getStep(square, 2, 1);
         }
 
-        return moves;
+        return attacks;
     }
 }
@@ -0,0 +1,113 @@
+package main.models.movables;
+
+import main.models.Bitboards;
+
+/**
+ * Precomputed attack tables for sliding figures indexed by magic multiplication.
+ * For every square the relevant blockers are masked from the occupancy,
+ * multiplied by the square's magic number and shifted down to an index into
+ * the table of attacks, so a lookup costs a multiply, a shift and an array read.
+ * Magic numbers are specific to the ordinal layout of <code>Coordinate</code>
+ * and were found by a random search, published tables do not apply.
+ */
+final class Magics {
+    private final int[][] directions;
+    private final long[] masks;
+    private final long[] magics;
+    private final int[] shifts;
+    private final int[] offsets;
+    private final long[] attacks;
+
+    /**
+     * @param directions row and column steps of every ray of the figure
+     * @param magics magic number of every square
+     */
+    Magics(int[][] directions, long[] magics) {
+        this.directions = directions;
+        this.masks = new long[64];
+        this.magics = magics;
+        this.shifts = new int[64];
+        this.offsets = new int[64];
+
+        int size = 0;
+        for (int square = 0; square < 64; square++) {
+            masks[square] = getRelevantMask(square);
+            shifts[square] = 64 - Long.bitCount(masks[square]);
+            offsets[square] = size;
+            size += 1 << Long.bitCount(masks[square]);
+        }
+        this.attacks = new long[size];
+
+        for (int square = 0; square < 64; square++) {
+            setAttacks(square);
+        }
+    }
+
+    /**
+     * <p>Looks up squares attacked from the square for the given occupancy.</p>
+     * @param square ordinal value of the figure's <code>Coordinate</code>
+     * @param occupied bitboard of blocking figures
+     * @return bitboard of attacked squares
+     */
+    long getAttacks(int square, long occupied) {
+        return attacks[offsets[square]
+                + (int) (((occupied & masks[square]) * magics[square]) >>> shifts[square])];
+    }
+
+    /**
+     * <p>Squares whose occupancy can change the attacks from the square.
+     * The last square of every ray never blocks anything and is left out.</p>
+     * @param square ordinal value of the <code>Coordinate</code>
+     * @return bitboard of relevant blockers
+     */
+    private long getRelevantMask(int square) {
+        long mask = 0L;
+
+        for (int[] d : directions) {
+            int row = (square >>> 3) + d[0];
+            int column = (square & 7) + d[1];
+
+            while (row + d[0] >= 0 && row + d[0] <= 7
+                    && column + d[1] >= 0 && column + d[1] <= 7) {
+                mask |= 1L << (row * 8 + column);
+                row += d[0];
+                column += d[1];
+            }
+        }
+
+        return mask;
+    }
+
+    private long getRayAttacks(int square, long occupied) {
+        long ray = 0L;
+
+        for (int[] d : directions) {
+            ray |= Bitboards.getRay(square, d[0], d[1], occupied);
+        }
+
+        return ray;
+    }
+
+    /**
+     * <p>Fills the table of the square by walking the rays for every
+     * subset of its relevant blockers.</p>
+     * @param square ordinal value of the <code>Coordinate</code>
+     * @throws IllegalStateException when the magic number maps two subsets
+     *                               with different attacks to one index
+     */
+    private void setAttacks(int square) {
+        long mask = masks[square];
+        long subset = 0L;
+
+        do {
+            int index = offsets[square] + (int) ((subset * magics[square]) >>> shifts[square]);
+            long ray = getRayAttacks(square, subset);
+
+            if (attacks[index] != 0L && attacks[index] != ray) {
+                throw new IllegalStateException("Invalid magic number for square " + square);
+            }
+            attacks[index] = ray;
+            subset = (subset - mask) & mask;
+        } while (subset != 0L);
+    }
+}
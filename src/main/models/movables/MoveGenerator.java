@@ -0,0 +1,293 @@
+package main.models.movables;
+
+import main.models.Bitboards;
+import main.models.Move;
+import main.models.Position;
+import main.models.Rank;
+import main.models.Side;
+
+/**
+ * Generates packed moves for all figures of a side from the bitboard position.
+ * Attack queries look up the attack tables from the target square instead of
+ * generating moves of every opposite figure.
+ */
+public final class MoveGenerator {
+    private static final Rank[] RANKS = Rank.values();
+
+    private MoveGenerator() {}
+
+    /**
+     * <p>Writes pseudo-legal moves of every figure of the side to the buffer.
+     * Moves leaving the own king in check are not filtered out.</p>
+     * @param position bitboard position
+     * @param side side to move
+     * @param moves buffer of packed moves, see <code>Move</code>
+     * @param index first free index of the buffer
+     * @return index after the last written move
+     */
+    public static int getMoves(Position position, Side side, int[] moves, int index) {
+        for (Rank rank : RANKS) {
+            long figures = position.getFigures(side, rank);
+
+            while (figures != 0) {
+                int square = Long.numberOfTrailingZeros(figures);
+                figures &= figures - 1;
+
+                index = addMoves(position, side, rank, square, moves, index);
+            }
+        }
+
+        return index;
+    }
+
+    private static int addMoves(Position position, Side side, Rank rank, int square, int[] moves, int index) {
+        return switch (rank) {
+            case KING -> King.addMoves(position, side, square, moves, index);
+            case QUEEN -> Queen.addMoves(position, side, square, moves, index);
+            case ROOK -> Rook.addMoves(position, side, square, moves, index);
+            case BISHOP -> Bishop.addMoves(position, side, square, moves, index);
+            case KNIGHT -> Knight.addMoves(position, side, square, moves, index);
+            case PAWN -> Pawn.addMoves(position, side, square, moves, index);
+        };
+    }
+
+    /**
+     * <p>Writes legal moves of every figure of the side to the buffer.
+     * Checkers and pinned figures are found once, then pseudo-legal moves
+     * are filtered by masks without making them. A pinned figure stays on
+     * the line through its king, and in single check a figure must capture
+     * the checker or block between it and the king. Only king moves and en
+     * passant captures, which clear two squares of a line, look up attacks.</p>
+     * @param position bitboard position
+     * @param side side to move
+     * @param moves buffer of packed moves, see <code>Move</code>
+     * @param index first free index of the buffer
+     * @return index after the last written move
+     */
+    public static int getLegalMoves(Position position, Side side, int[] moves, int index) {
+        int count = getMoves(position, side, moves, index);
+        long king = position.getFigures(side, Rank.KING);
+
+        if (king == 0) {
+            return count;
+        }
+
+        int square = Long.numberOfTrailingZeros(king);
+        Side opponent = side.getOpposite();
+        long occupied = position.getOccupied();
+        long checkers = getAttackers(position, square, opponent, occupied);
+        long pinned = getPinned(position, side, square);
+        long evasions = -1L;
+
+        if (checkers != 0) {
+            evasions = (checkers & (checkers - 1)) != 0
+                    ? 0L
+                    : checkers | Bitboards.getBetween(square, Long.numberOfTrailingZeros(checkers));
+        }
+
+        for (int i = index; i < count; i++) {
+            int move = moves[i];
+            int from = Move.getFrom(move);
+            int to = Move.getTo(move);
+            boolean legal;
+
+            if (from == square) {
+                // Castle moves are generated only when the path is not attacked
+                legal = Move.isCastle(move)
+                        || getAttackers(position, to, opponent, occupied ^ king) == 0;
+            } else if (Move.isEnPassant(move)) {
+                long captured = 1L << (side.equals(Side.WHITE) ? to + 8 : to - 8);
+                long after = occupied ^ (1L << from) ^ (1L << to) ^ captured;
+
+                legal = (getAttackers(position, square, opponent, after) & ~captured) == 0;
+            } else {
+                legal = (evasions & (1L << to)) != 0
+                        && ((pinned & (1L << from)) == 0 || (Bitboards.getLine(square, from) & (1L << to)) != 0);
+            }
+
+            if (legal) {
+                moves[index++] = move;
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * <p>Finds figures of the side which alone stand between their king
+     * and an opposite slider aiming at it.</p>
+     * @param position bitboard position
+     * @param side side of the king
+     * @param square ordinal value of the king's <code>Coordinate</code>
+     * @return bitboard of pinned figures
+     */
+    public static long getPinned(Position position, Side side, int square) {
+        Side opponent = side.getOpposite();
+        long occupied = position.getOccupied();
+        long queens = position.getFigures(opponent, Rank.QUEEN);
+        long snipers = (Rook.getAttacks(square, 0L) & (position.getFigures(opponent, Rank.ROOK) | queens))
+                | (Bishop.getAttacks(square, 0L) & (position.getFigures(opponent, Rank.BISHOP) | queens));
+        long pinned = 0L;
+
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Bitboards.getBetween(square, Long.numberOfTrailingZeros(snipers)) & occupied;
+
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+                pinned |= blockers & position.getSide(side);
+            }
+        }
+
+        return pinned;
+    }
+
+    /**
+     * <p>Writes pseudo-legal moves which neither capture nor promote,
+     * the complement of <code>getCaptures</code>.</p>
+     * @param position bitboard position
+     * @param side side to move
+     * @param moves buffer of packed moves, see <code>Move</code>
+     * @param index first free index of the buffer
+     * @return index after the last written move
+     */
+    public static int getQuiets(Position position, Side side, int[] moves, int index) {
+        int count = getMoves(position, side, moves, index);
+
+        for (int i = index; i < count; i++) {
+            if (!Move.isCapture(moves[i]) && !Move.isPromotion(moves[i])) {
+                moves[index++] = moves[i];
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * <p>Evaluates if a move, for example one read from a hash table,
+     * is generated for the figure on its origin square.</p>
+     * @param position bitboard position
+     * @param side side to move
+     * @param move packed move
+     * @param buffer buffer for the moves of the figure
+     * @return true if the move is pseudo-legal
+     */
+    public static boolean isPseudoLegal(Position position, Side side, int move, int[] buffer) {
+        int from = Move.getFrom(move);
+        int piece = position.getPieceAt(from);
+
+        if (move == Move.NONE || piece == Position.EMPTY || !Position.getSide(piece).equals(side)) {
+            return false;
+        }
+
+        int count = addMoves(position, side, Position.getRank(piece), from, buffer, 0);
+        for (int i = 0; i < count; i++) {
+            if (buffer[i] == move) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * <p>Writes pseudo-legal captures and promotions of every figure
+     * of the side to the buffer, the moves a quiescence search tries.</p>
+     * @param position bitboard position
+     * @param side side to move
+     * @param moves buffer of packed moves, see <code>Move</code>
+     * @param index first free index of the buffer
+     * @return index after the last written move
+     */
+    public static int getCaptures(Position position, Side side, int[] moves, int index) {
+        long targets = position.getSide(side.getOpposite()) & position.getTargets(side);
+        long occupied = position.getOccupied();
+
+        for (Rank rank : RANKS) {
+            long figures = position.getFigures(side, rank);
+
+            while (figures != 0) {
+                int square = Long.numberOfTrailingZeros(figures);
+                figures &= figures - 1;
+
+                index = switch (rank) {
+                    case KING -> Move.addMoves(position, square, King.getAttacks(square) & targets, moves, index);
+                    case QUEEN -> Move.addMoves(position, square,
+                            Queen.getAttacks(square, occupied) & targets, moves, index);
+                    case ROOK -> Move.addMoves(position, square,
+                            Rook.getAttacks(square, occupied) & targets, moves, index);
+                    case BISHOP -> Move.addMoves(position, square,
+                            Bishop.getAttacks(square, occupied) & targets, moves, index);
+                    case KNIGHT -> Move.addMoves(position, square, Knight.getAttacks(square) & targets, moves, index);
+                    case PAWN -> Pawn.addCaptures(position, side, square, moves, index);
+                };
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * <p>Finds figures of the side attacking the square.</p>
+     * @param position bitboard position
+     * @param square ordinal value of the attacked <code>Coordinate</code>
+     * @param side side of the attackers
+     * @param occupied bitboard of blocking figures
+     * @return bitboard of attacking figures
+     */
+    public static long getAttackers(Position position, int square, Side side, long occupied) {
+        long queens = position.getFigures(side, Rank.QUEEN);
+
+        return (Pawn.getAttacks(side.getOpposite(), square) & position.getFigures(side, Rank.PAWN))
+                | (Knight.getAttacks(square) & position.getFigures(side, Rank.KNIGHT))
+                | (King.getAttacks(square) & position.getFigures(side, Rank.KING))
+                | (Rook.getAttacks(square, occupied) & (position.getFigures(side, Rank.ROOK) | queens))
+                | (Bishop.getAttacks(square, occupied) & (position.getFigures(side, Rank.BISHOP) | queens));
+    }
+
+    /**
+     * <p>Finds squares controlled by all figures of the side. Rays pass
+     * through the opposite king, so the king cannot retreat along them.</p>
+     * @param position bitboard position
+     * @param side controlling side
+     * @return bitboard of controlled squares
+     */
+    public static long getControlled(Position position, Side side) {
+        long occupied = position.getOccupied() & ~position.getOppositeKing(side);
+        long queens = position.getFigures(side, Rank.QUEEN);
+        long controlled = 0L;
+
+        for (long pawns = position.getFigures(side, Rank.PAWN); pawns != 0; pawns &= pawns - 1) {
+            controlled |= Pawn.getAttacks(side, Long.numberOfTrailingZeros(pawns));
+        }
+        for (long knights = position.getFigures(side, Rank.KNIGHT); knights != 0; knights &= knights - 1) {
+            controlled |= Knight.getAttacks(Long.numberOfTrailingZeros(knights));
+        }
+        for (long kings = position.getFigures(side, Rank.KING); kings != 0; kings &= kings - 1) {
+            controlled |= King.getAttacks(Long.numberOfTrailingZeros(kings));
+        }
+        for (long rooks = position.getFigures(side, Rank.ROOK) | queens; rooks != 0; rooks &= rooks - 1) {
+            controlled |= Rook.getAttacks(Long.numberOfTrailingZeros(rooks), occupied);
+        }
+        for (long bishops = position.getFigures(side, Rank.BISHOP) | queens; bishops != 0; bishops &= bishops - 1) {
+            controlled |= Bishop.getAttacks(Long.numberOfTrailingZeros(bishops), occupied);
+        }
+
+        return controlled;
+    }
+
+    public static boolean isAttacked(Position position, int square, Side side) {
+        return getAttackers(position, square, side, position.getOccupied()) != 0;
+    }
+
+    /**
+     * <p>Evaluates if the king of the side is attacked.</p>
+     * @param position bitboard position
+     * @param side side of the king
+     * @return true if the king is in check
+     */
+    public static boolean isCheck(Position position, Side side) {
+        long king = position.getFigures(side, Rank.KING);
+
+        return king != 0
+                && isAttacked(position, Long.numberOfTrailingZeros(king), side.getOpposite());
+    }
+}
@@ -1,214 +1,139 @@
 package main.models.movables;
 
-
 import main.models.*;
 
-import java.awt.*;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
-
-public class Pawn implements Movable {
-    private static final int UP = -8;
-    private static final int DOWN = 8;
-    private static final int LEFT_UP = -9;
-    private static final int RIGHT_UP = -7;
-    private static final int LEFT_DOWN = 7;
-    private static final int RIGHT_DOWN = 9;
-
-    private final HashMap<Coordinate, Figure> figures;
-    private final HashMap<Point, Coordinate> coordinates;
-
-    public Pawn(HashMap<Coordinate, Figure> figures,
-                HashMap<Point, Coordinate> coordinates) {
-        this.figures = figures;
-        this.coordinates = coordinates;
-    }
+public final class Pawn {
+    private static final int WHITE_START_ROW = 6;
+    private static final int BLACK_START_ROW = 1;
+    private static final int WHITE_PROMOTION_ROW = 1;
+    private static final int BLACK_PROMOTION_ROW = 6;
+    private static final Rank[] PROMOTIONS = {Rank.QUEEN, Rank.ROOK, Rank.BISHOP, Rank.KNIGHT};
+    private static final long[][] ATTACKS = setAttacks();
+
+    private Pawn() {}
 
     /**
-     * <p>Evaluates if a figure occupies a coordinate
-     * and is opposite side to the selected figure.
-     * King cannot be removed.</p>
-     *
-     * @param selected <code>Figure</code> to move
-     * @param c        <code>Coordinate</code> to move to
-     * @return true if the figure at the <code>Coordinate</code>
-     * is opposite side and not a king
+     * <p>Steps forward to empty squares, twice from the starting row.</p>
+     * @param position bitboard position
+     * @param side side of the pawn
+     * @param square ordinal value of the pawn's <code>Coordinate</code>
+     * @return bitboard of available steps
      */
-    private boolean isRemovable(Figure selected, Coordinate c) {
-        Figure contested = figures.get(c);
+    private static long getPushes(Position position, Side side, int square) {
+        int step = side.equals(Side.WHITE) ? -1 : 1;
+        int startRow = side.equals(Side.WHITE) ? WHITE_START_ROW : BLACK_START_ROW;
+        long empty = ~position.getOccupied();
+
+        long push = Bitboards.getStep(square, step, 0) & empty;
+        if (push != 0 && (square >>> 3) == startRow) {
+            push |= Bitboards.getStep(square, 2 * step, 0) & empty;
+        }
 
-        return contested != null
-                && !(contested.getSide().equals(selected.getSide()))
-                && !(contested.getRank().equals(Rank.KING));
+        return push;
     }
 
     /**
-     * <p>Evaluates if opposite side king occupies a coordinate.</p>
-     * @param selected selected figure on board
-     * @param c currently evaluated position
-     * @return true if an opposite king occupies position
+     * <p>Writes packed moves of the pawn to the buffer. Steps to the last row
+     * are written once for every promotion rank.</p>
+     * @param position bitboard position
+     * @param side side of the pawn
+     * @param square ordinal value of the pawn's <code>Coordinate</code>
+     * @param moves buffer of packed moves
+     * @param index first free index of the buffer
+     * @return index after the last written move
      */
-    private boolean isOppositeKing(Figure selected, Coordinate c) {
-        Figure contested = figures.get(c);
+    public static int addMoves(Position position, Side side, int square, int[] moves, int index) {
+        long attacks = ATTACKS[side.ordinal()][square];
+        long captures = attacks & position.getOccupied() & position.getTargets(side);
+        long pushes = getPushes(position, side, square);
+        int promotionRow = side.equals(Side.WHITE) ? WHITE_PROMOTION_ROW : BLACK_PROMOTION_ROW;
+
+        if ((square >>> 3) == promotionRow) {
+            long targets = captures | pushes;
+
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                int flags = Bitboards.contains(captures, to) ? Move.CAPTURE : Move.NONE;
+                targets &= targets - 1;
+
+                for (Rank promotion : PROMOTIONS) {
+                    moves[index++] = Move.getMove(square, to, flags, promotion);
+                }
+            }
+            return index;
+        }
 
-        return contested != null
-                && contested.getRank().equals(Rank.KING)
-                && !(contested.getSide().equals(selected.getSide()));
-    }
+        index = Move.addMoves(position, square, captures, moves, index);
+        while (pushes != 0) {
+            int to = Long.numberOfTrailingZeros(pushes);
+            pushes &= pushes - 1;
 
-    /**
-     * Checks if any figure occupies a given position.
-     * @param c <code>Coordinate</code> to move to
-     * @return false when a <code>Figure</code> occupies <code>Coordinate</code>
-     */
-    private boolean isEmpty(Coordinate c) {
-        return figures.get(c) == null;
+            moves[index++] = Move.getMove(square, to,
+                    Math.abs(to - square) == 16 ? Move.DOUBLE_STEP : Move.NONE);
+        }
+
+        // Remove the pawn which passed by a double step
+        int enPassant = position.getEnPassant();
+        if (enPassant != Position.NO_SQUARE && Bitboards.contains(attacks, enPassant)) {
+            moves[index++] = Move.getMove(square, enPassant, Move.CAPTURE | Move.EN_PASSANT);
+        }
+
+        return index;
     }
 
     /**
-     * <p>Checks for valid moves for a given figure.</p>
-     * @param selectedFigure to be moved
+     * <p>Writes captures and promotions of the pawn to the buffer.</p>
+     * @param position bitboard position
+     * @param side side of the pawn
+     * @param square ordinal value of the pawn's <code>Coordinate</code>
+     * @param moves buffer of packed moves
+     * @param index first free index of the buffer
+     * @return index after the last written move
      */
-    @Override
-    public HashSet<Coordinate> getMoves(Figure selectedFigure) {
-        Coordinate position = coordinates.get(selectedFigure.getLocation());
-        HashSet<Coordinate> moves = new HashSet<>();
-        Coordinate c;
-
-        switch (selectedFigure.getSide()) {
-            case WHITE -> {
-                // Move up
-                c = Coordinate.getCoordinate(position.ordinal() + UP);
-                if (c != null && isEmpty(c)) {
-                    moves.add(c);
-                }
-                // Remove left-up
-                if (! Coordinate.isLeftBoundary(position)) { // left edge
-                    c = Coordinate.getCoordinate(position.ordinal() + LEFT_UP);
-                    if (isRemovable(selectedFigure, c)) {
-                        moves.add(c);
-                    }
-                }
-                // Remove right-up
-                if (! Coordinate.isRightBoundary(position)) { // left edge
-                    c = Coordinate.getCoordinate(position.ordinal() + RIGHT_UP);
-                    if (isRemovable(selectedFigure, c)) {
-                        moves.add(c);
-                    }
-                }
-            }
-            case BLACK -> {
-                // Move down
-                c = Coordinate.getCoordinate(position.ordinal() + DOWN);
-                if (c != null && isEmpty(c)) {
-                    moves.add(c);
-                }
-                // Remove left-down
-                if (! Coordinate.isLeftBoundary(position)) { // left edge
-                    c = Coordinate.getCoordinate(position.ordinal() + LEFT_DOWN);
-                    if (isRemovable(selectedFigure, c)) {
-                        moves.add(c);
-                    }
-                }
-                // Remove right-down
-                if (! Coordinate.isRightBoundary(position)) { // left edge
-                    c = Coordinate.getCoordinate(position.ordinal() + RIGHT_DOWN);
-                    if (isRemovable(selectedFigure, c)) {
-                        moves.add(c);
-                    }
-                }
-            }
+    public static int addCaptures(Position position, Side side, int square, int[] moves, int index) {
+        int promotionRow = side.equals(Side.WHITE) ? WHITE_PROMOTION_ROW : BLACK_PROMOTION_ROW;
+
+        if ((square >>> 3) == promotionRow) {
+            return addMoves(position, side, square, moves, index);
         }
 
-        return moves;
-    }
+        long attacks = ATTACKS[side.ordinal()][square];
+        index = Move.addMoves(position, square,
+                attacks & position.getOccupied() & position.getTargets(side), moves, index);
 
-    @Override
-    public HashSet<Coordinate> getControlledMoves(Figure selectedFigure) {
-        Coordinate position = coordinates.get(selectedFigure.getLocation());
-        HashSet<Coordinate> moves = new HashSet<>();
-        Coordinate c;
-
-        switch (selectedFigure.getSide()) {
-            case WHITE -> {
-                // Control left-up
-                if (! Coordinate.isLeftBoundary(position)) { // left edge
-                    c = Coordinate.getCoordinate(position.ordinal() + LEFT_UP);
-                    if (c != null) {
-                        moves.add(c);
-                    }
-                }
-                // Control right-up
-                if (! Coordinate.isRightBoundary(position)) { // left edge
-                    c = Coordinate.getCoordinate(position.ordinal() + RIGHT_UP);
-                    if (c != null) {
-                        moves.add(c);
-                    }
-                }
-            }
-            case BLACK -> {
-                // Control left-down
-                if (! Coordinate.isLeftBoundary(position)) { // left edge
-                    c = Coordinate.getCoordinate(position.ordinal() + LEFT_DOWN);
-                    if (c != null) {
-                        moves.add(c);
-                    }
-                }
-                // Control right-down
-                if (! Coordinate.isRightBoundary(position)) { // left edge
-                    c = Coordinate.getCoordinate(position.ordinal() + RIGHT_DOWN);
-                    if (c != null) {
-                        moves.add(c);
-                    }
-                }
-            }
+        int enPassant = position.getEnPassant();
+        if (enPassant != Position.NO_SQUARE && Bitboards.contains(attacks, enPassant)) {
+            moves[index++] = Move.getMove(square, enPassant, Move.CAPTURE | Move.EN_PASSANT);
         }
 
-        return moves;
+        return index;
     }
 
-    @Override
-    public HashSet<Coordinate> getCheckMoves(Figure selectedFigure) {
-        Coordinate position = coordinates.get(selectedFigure.getLocation());
-        HashSet<Coordinate> moves = new HashSet<>();
-        Coordinate c;
-
-        switch (selectedFigure.getSide()) {
-            case WHITE -> {
-                // Check left-up
-                if (! Coordinate.isLeftBoundary(position)) { // left edge
-                    c = Coordinate.getCoordinate(position.ordinal() + LEFT_UP);
-                    if (c != null && isOppositeKing(selectedFigure, c)) {
-                        moves.add(position);
-                    }
-                }
-                // Check right-up
-                if (! Coordinate.isRightBoundary(position)) { // left edge
-                    c = Coordinate.getCoordinate(position.ordinal() + RIGHT_UP);
-                    if (c != null && isOppositeKing(selectedFigure, c)) {
-                        moves.add(position);
-                    }
-                }
-            }
-            case BLACK -> {
-                // Check left-down
-                if (! Coordinate.isLeftBoundary(position)) { // left edge
-                    c = Coordinate.getCoordinate(position.ordinal() + LEFT_DOWN);
-                    if (c != null && isOppositeKing(selectedFigure, c)) {
-                        moves.add(position);
-                    }
-                }
-                // Check right-down
-                if (! Coordinate.isRightBoundary(position)) { // left edge
-                    c = Coordinate.getCoordinate(position.ordinal() + RIGHT_DOWN);
-                    if (c != null && isOppositeKing(selectedFigure, c)) {
-                        moves.add(position);
-                    }
-                }
-            }
+    /**
+     * <p>Looks up squares attacked by the pawn of the given side.</p>
+     * @param side side of the pawn
+     * @param square ordinal value of the pawn's <code>Coordinate</code>
+     * @return bitboard of attacked squares
+     */
+    public static long getAttacks(Side side, int square) {
+        return ATTACKS[side.ordinal()][square];
+    }
+
+    /**
+     * <p>Precomputes pawn attacks from every square of the board,
+     * white pawns attack up and black pawns down.</p>
+     * @return bitboards of attacked squares indexed by side and square
+     */
+    private static long[][] setAttacks() {
+        long[][] attacks = new long[Side.values().length][64];
+
+        for (int square = 0; square < 64; square++) {
+            attacks[Side.WHITE.ordinal()][square] = Bitboards.getStep(square, -1, -1)
+                    | Bitboards.getStep(square, -1, 1);
+            attacks[Side.BLACK.ordinal()][square] = Bitboards.getStep(square, 1, -1)
+                    | Bitboards.getStep(square, 1, 1);
         }
 
-        return moves;
+        return attacks;
     }
 }
@@ -1,55 +1,34 @@
 package main.models.movables;
 
-import main.models.Coordinate;
-import main.models.Figure;
-import main.models.Movable;
-
-import java.util.HashSet;
-
-public class Queen implements Movable {
-    private final Movable bishop;
-    private final Movable rook;
-
-    public Queen(Movable bishop, Movable rook) {
-        this.bishop = bishop;
-        this.rook = rook;
-    }
+import main.models.Move;
+import main.models.Position;
+import main.models.Side;
 
+public final class Queen {
+    private Queen() {}
 
     /**
-     * <p>Checks for valid moves for a given figure.</p>
-     *
-     * @param selectedFigure to be moved
+     * <p>Writes packed moves of the queen to the buffer.</p>
+     * @param position bitboard position
+     * @param side side of the queen
+     * @param square ordinal value of the queen's <code>Coordinate</code>
+     * @param moves buffer of packed moves
+     * @param index first free index of the buffer
+     * @return index after the last written move
      */
-    @Override
-    public HashSet<Coordinate> getMoves(Figure selectedFigure) {
-        HashSet<Coordinate> moves = new HashSet<>();
+    public static int addMoves(Position position, Side side, int square, int[] moves, int index) {
+        long targets = getAttacks(square, position.getOccupied()) & position.getTargets(side);
 
-        moves.addAll(bishop.getMoves(selectedFigure));
-        moves.addAll(rook.getMoves(selectedFigure));
-
-        return moves;
+        return Move.addMoves(position, square, targets, moves, index);
     }
 
-    @Override
-    public HashSet<Coordinate> getControlledMoves(Figure selectedFigure) {
-        HashSet<Coordinate> moves = new HashSet<>();
-
-        moves.addAll(bishop.getControlledMoves(selectedFigure));
-        moves.addAll(rook.getControlledMoves(selectedFigure));
-
-        return moves;
-    }
-
-
-    @Override
-    public HashSet<Coordinate> getCheckMoves(Figure selectedFigure) {
-        HashSet<Coordinate> moves = new HashSet<>();
-
-        moves.addAll(bishop.getCheckMoves(selectedFigure));
-        moves.addAll(rook.getCheckMoves(selectedFigure));
-
-        return moves;
+    /**
+     * <p>Looks up squares attacked along both rook and bishop rays.</p>
+     * @param square ordinal value of the queen's <code>Coordinate</code>
+     * @param occupied bitboard of blocking figures
+     * @return bitboard of attacked squares
+     */
+    public static long getAttacks(int square, long occupied) {
+        return Rook.getAttacks(square, occupied) | Bishop.getAttacks(square, occupied);
     }
-
-}
\ No newline at end of file
+}
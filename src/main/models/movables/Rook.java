@@ -1,275 +1,56 @@
 package main.models.movables;
 
-import main.models.Coordinate;
-import main.models.Figure;
-import main.models.Movable;
-import main.models.Rank;
-
-import java.awt.*;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-
-public class Rook implements Movable {
-    private static final int UP = -8;
-    private static final int DOWN = 8;
-    private static final int LEFT = -1;
-    private static final int RIGHT = 1;
-
-    private final HashMap<Coordinate, Figure> figures;
-    private final HashMap<Point, Coordinate> coordinates;
-
-    public Rook(HashMap<Coordinate, Figure> figures,
-                HashMap<Point, Coordinate> coordinates) {
-        this.figures = figures;
-        this.coordinates = coordinates;
-    }
-
-    /**
-     * <p>Evaluates if a figure occupies a coordinate
-     * and is opposite side to the selected figure.
-     * King cannot be removed.</p>
-     *
-     * @param selected <code>Figure</code> to move
-     * @param c        <code>Coordinate</code> to move to
-     * @return true if the figure at the <code>Coordinate</code>
-     * is opposite side and not a king
-     */
-    private boolean isRemovable(Figure selected, Coordinate c) {
-        Figure contested = figures.get(c);
-
-        return contested != null
-                && !(contested.getSide().equals(selected.getSide()))
-                && !(contested.getRank().equals(Rank.KING));
-    }
+import main.models.Move;
+import main.models.Position;
+import main.models.Side;
+
+public final class Rook {
+    private static final long[] MAGIC_NUMBERS = {
+            0x7080024000108620L, 0x0040200010004000L, 0x0100081020004500L, 0x3880048110000801L,
+            0x4200200200080410L, 0x2400900400082002L, 0x45000B000F860004L, 0x220004038040A116L,
+            0x010280002084400AL, 0x0026402004401000L, 0x0045002002110048L, 0x0043002300100009L,
+            0x004280801C002800L, 0x4001800401801200L, 0x1005000411000200L, 0x408100120040A100L,
+            0x0160808000401020L, 0x0020004008205000L, 0x0000430010200300L, 0x4001818008005000L,
+            0x1D04008008008004L, 0x6002080110204004L, 0x2009040001081002L, 0x8094020020804401L,
+            0x00C00049800080A7L, 0x80015000C0002000L, 0xC000220200108040L, 0x00A8018480100108L,
+            0x0818008080080401L, 0x0A00040080020080L, 0x1A01080400104A31L, 0x000200A200011044L,
+            0x4080006001400040L, 0x240080400C802000L, 0x880500104100200AL, 0x0C02002012004008L,
+            0x0000800800800401L, 0x0402002004040010L, 0x0A06888104001002L, 0x01A0A400A2000041L,
+            0x00C0008000428022L, 0x5048C0E010054000L, 0x0010012000848011L, 0x0004100209010020L,
+            0x8000040008008080L, 0x2C08020004008080L, 0x0800020841040010L, 0x0006004408820019L,
+            0x1010400030800180L, 0x0280882000400880L, 0x02810098A0004300L, 0x02E4914840220200L,
+            0xA094800802040080L, 0x00220010A8045200L, 0x8000810210080400L, 0x2004800100016280L,
+            0x0000201040800D01L, 0x00090010E0854001L, 0x0000090040200011L, 0x014B0008A4300121L,
+            0x1806002004100802L, 0x0883000400020801L, 0x00101CA228051004L, 0x0438088100402402L
+    };
+    private static final Magics MAGICS = new Magics(
+            new int[][] {{-1, 0}, {1, 0}, {0, -1}, {0, 1}},
+            MAGIC_NUMBERS);
+
+    private Rook() {}
 
     /**
-     * <p>Evaluates if a figure occupies a coordinate
-     * and is on the same side to the selected figure.
-     * King cannot be removed.</p>
-     *
-     * @param selected <code>Figure</code> to move
-     * @param c        <code>Coordinate</code> to move to
-     * @return true if opposing figure occupies position
+     * <p>Writes packed moves of the rook to the buffer.</p>
+     * @param position bitboard position
+     * @param side side of the rook
+     * @param square ordinal value of the rook's <code>Coordinate</code>
+     * @param moves buffer of packed moves
+     * @param index first free index of the buffer
+     * @return index after the last written move
      */
-    private boolean isProtected(Figure selected, Coordinate c) {
-        Figure contested = figures.get(c);
-
-        return contested != null
-                && contested.getSide().equals(selected.getSide());
-    }
+    public static int addMoves(Position position, Side side, int square, int[] moves, int index) {
+        long targets = getAttacks(square, position.getOccupied()) & position.getTargets(side);
 
-    /**
-     * <p>Evaluates if opposite side king occupies a coordinate.</p>
-     * @param selected selected figure on board
-     * @param c currently evaluated position
-     * @return true if an opposite king occupies position
-     */
-    private boolean isOppositeKing(Figure selected, Coordinate c) {
-        Figure contested = figures.get(c);
-
-        return contested != null
-                && contested.getRank().equals(Rank.KING)
-                && !(contested.getSide().equals(selected.getSide()));
-    }
-
-    /**
-     * Checks if any figure occupies a given position.
-     *
-     * @param c <code>Coordinate</code> to move to
-     * @return false when a <code>Figure</code> occupies <code>Coordinate</code>
-     */
-    private boolean isEmpty(Coordinate c) {
-        return figures.get(c) == null;
+        return Move.addMoves(position, square, targets, moves, index);
     }
 
     /**
-     * <p>Checks for valid moves for a given figure.</p>
-     *
-     * @param selectedFigure to be moved
+     * <p>Looks up squares attacked along the rook's rays.</p>
+     * @param square ordinal value of the rook's <code>Coordinate</code>
+     * @param occupied bitboard of blocking figures
+     * @return bitboard of attacked squares
      */
-    @Override
-    public HashSet<Coordinate> getMoves(Figure selectedFigure) {
-        Coordinate position = coordinates.get(selectedFigure.getLocation());
-        HashSet<Coordinate> moves = new HashSet<>();
-        Coordinate c;
-
-        // Up
-        c = Coordinate.getCoordinate(position.ordinal() + UP);
-        while (c != null && (isEmpty(c) || isRemovable(selectedFigure, c))) {
-            moves.add(c);
-            c = Coordinate.getCoordinate(c.ordinal() + UP);
-        }
-        // Down
-        c = Coordinate.getCoordinate(position.ordinal() + DOWN);
-        while (c != null && (isEmpty(c) || isRemovable(selectedFigure, c))) {
-            moves.add(c);
-            c = Coordinate.getCoordinate(c.ordinal() + DOWN);
-        }
-        // Left
-        c = Coordinate.getCoordinate(position.ordinal() + LEFT);
-        while (c != null && (isEmpty(c) || isRemovable(selectedFigure, c))
-                && !Coordinate.isLeftBoundary(position)) {
-            moves.add(c);
-            if (Coordinate.isBoundary(c) || isRemovable(selectedFigure, c)) {
-                break;
-            }
-            c = Coordinate.getCoordinate(c.ordinal() + LEFT);
-        }
-        // Right
-        c = Coordinate.getCoordinate(position.ordinal() + RIGHT);
-        while (c != null && (isEmpty(c) || isRemovable(selectedFigure, c))
-                && !Coordinate.isRightBoundary(position)) {
-            moves.add(c);
-            if (Coordinate.isBoundary(c) || isRemovable(selectedFigure, c)) {
-                break;
-            }
-            c = Coordinate.getCoordinate(c.ordinal() + RIGHT);
-        }
-
-        return moves;
-    }
-
-    @Override
-    public HashSet<Coordinate> getControlledMoves(Figure selectedFigure) {
-        Coordinate position = coordinates.get(selectedFigure.getLocation());
-        HashSet<Coordinate> moves = new HashSet<>();
-        Coordinate c;
-
-        // Up
-        c = Coordinate.getCoordinate(position.ordinal() + UP);
-        while (c != null) {
-            moves.add(c);
-            if (isProtected(selectedFigure, c)
-                    || isRemovable(selectedFigure, c)
-            ) { break; }
-            c = Coordinate.getCoordinate(c.ordinal() + UP);
-        }
-
-        // Down
-        c = Coordinate.getCoordinate(position.ordinal() + DOWN);
-        while (c != null) {
-            moves.add(c);
-            if (isProtected(selectedFigure, c)
-                    || isRemovable(selectedFigure, c)
-            ) { break; }
-            c = Coordinate.getCoordinate(c.ordinal() + DOWN);
-        }
-
-        // Left
-        c = Coordinate.getCoordinate(position.ordinal() + LEFT);
-        while (c != null && !Coordinate.isLeftBoundary(position)) {
-            moves.add(c);
-            if (Coordinate.isBoundary(c)
-                    || isProtected(selectedFigure, c)
-                    || isRemovable(selectedFigure, c)
-            ) { break; }
-            c = Coordinate.getCoordinate(c.ordinal() + LEFT);
-        }
-
-        // Right
-        c = Coordinate.getCoordinate(position.ordinal() + RIGHT);
-        while (c != null && !Coordinate.isRightBoundary(position)) {
-            moves.add(c);
-            if (Coordinate.isBoundary(c)
-                    || isProtected(selectedFigure, c)
-                    || isRemovable(selectedFigure, c)
-            ) { break; }
-            c = Coordinate.getCoordinate(c.ordinal() + RIGHT);
-        }
-
-        return moves;
+    public static long getAttacks(int square, long occupied) {
+        return MAGICS.getAttacks(square, occupied);
     }
-
-    @Override
-    public HashSet<Coordinate> getCheckMoves(Figure selectedFigure) {
-        Coordinate position = coordinates.get(selectedFigure.getLocation());
-        HashSet<Coordinate> moves = new HashSet<>();
-        Coordinate c;
-        int removable = 0;
-
-        // Up
-        c = Coordinate.getCoordinate(position.ordinal() + UP);
-        while (c != null && !(isProtected(selectedFigure, c))) {
-            if (isRemovable(selectedFigure, c)) {
-                removable++;
-            }
-            if (isOppositeKing(selectedFigure, c) && removable <= 1) {
-                moves.add(position);
-                return moves;
-            }
-            moves.add(c);
-            c = Coordinate.getCoordinate(c.ordinal() + UP);
-        }
-        moves.clear();
-        removable = 0;
-
-        // Down
-        c = Coordinate.getCoordinate(position.ordinal() + DOWN);
-        while (c != null && !(isProtected(selectedFigure, c))) {
-            if (isRemovable(selectedFigure, c)) {
-                removable++;
-            }
-            if (isOppositeKing(selectedFigure, c) && removable <= 1) {
-                moves.add(position);
-                return moves;
-            }
-            moves.add(c);
-            c = Coordinate.getCoordinate(c.ordinal() + DOWN);
-        }
-        moves.clear();
-        removable = 0;
-
-        // Left
-        c = Coordinate.getCoordinate(position.ordinal() + LEFT);
-        while (c != null && !(Coordinate.isLeftBoundary(position) && isProtected(selectedFigure, c))) {
-            if (isRemovable(selectedFigure, c)) {
-                removable++;
-            }
-            if (isOppositeKing(selectedFigure, c) && removable <= 1) {
-                moves.add(position);
-                return moves;
-            }
-            moves.add(c);
-            if (Coordinate.isBoundary(c)) {
-                break;
-            }
-            c = Coordinate.getCoordinate(c.ordinal() + LEFT);
-        }
-        moves.clear();
-        removable = 0;
-
-        // Right
-        c = Coordinate.getCoordinate(position.ordinal() + RIGHT);
-        while (c != null && !(Coordinate.isRightBoundary(position) || isProtected(selectedFigure, c))) {
-            if (isRemovable(selectedFigure, c)) {
-                removable++;
-            }
-            if (isOppositeKing(selectedFigure, c) && removable <= 1) {
-                moves.add(position);
-                return moves;
-            }
-            moves.add(c);
-            if (Coordinate.isBoundary(c)) {
-                break;
-            }
-            c = Coordinate.getCoordinate(c.ordinal() + RIGHT);
-        }
-        moves.clear();
-
-        return moves;
-    }
-//
-//    public Figure getCastleRook(Coordinate selectedCoordinate) {
-//        Figure rook = null;
-//
-//        switch (selectedCoordinate) {
-//            case A3 -> rook = figures.get(Coordinate.A1);
-//            case A7 -> rook = figures.get(Coordinate.A8);
-//            case H3 -> rook = figures.get(Coordinate.H1);
-//            case H7 -> rook = figures.get(Coordinate.H8);
-//        }
-//        return rook;
-//    }
-
 }
@@ -0,0 +1,101 @@
+package main.engine;
+
+import main.models.Fen;
+import main.models.Position;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Checks the move generator and the incremental state of the position,
+ * run by <code>build.sh</code> against the core jar. Any failed check
+ * exits with status 1, which fails the build.
+ * <p>Node counts of the start position and Kiwipete catch regressions of
+ * <code>Position</code> and <code>MoveGenerator</code>, the EPD suite adds
+ * promotions, en passant pins and castling through check, and
+ * <code>Perft.verify</code> compares keys, piece-square scores, the game
+ * phase and the <code>Accumulator</code> with a recomputation after every
+ * move made and taken back.</p>
+ */
+public class PerftTest {
+    private static final String SUITE_PATH = "src/main/resources/perft/standard.epd";
+    private static final String KIWIPETE =
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    // Rights without rooks at home, which the FEN reader must drop
+    private static final String BARE_KINGS = "4k3/8/8/8/8/8/8/4K3 w KQkq - 0 1";
+    private static final long[] START_POSITION_NODES = {1, 20, 400, 8902, 197281, 4865609};
+    private static final long[] KIWIPETE_NODES = {1, 48, 2039, 97862, 4085603};
+    private static final long[] BARE_KINGS_NODES = {1, 5, 25, 170};
+    private static final int SUITE_DEPTH = 4;
+    private static final int VERIFY_DEPTH = 3;
+    private static final int VERIFY_HIDDEN = 32;
+    private static final long VERIFY_SEED = 1;
+    private static final int HASH_SIZE = 16;
+
+    private static final PrintStream NOWHERE = new PrintStream(OutputStream.nullOutputStream());
+
+    private int failures;
+
+    public static void main(String[] args) throws IOException {
+        PerftTest test = new PerftTest();
+        List<String> suite = Files.readAllLines(Path.of(SUITE_PATH));
+
+        test.testNodes("start position", Fen.START_POSITION, START_POSITION_NODES, null);
+        test.testNodes("start position, hashed", Fen.START_POSITION, START_POSITION_NODES,
+                new PerftHash(HASH_SIZE));
+        test.testNodes("Kiwipete", KIWIPETE, KIWIPETE_NODES, null);
+        test.testNodes("bare kings", BARE_KINGS, BARE_KINGS_NODES, null);
+        test.testSuite(suite);
+        test.testVerify(suite);
+
+        System.out.println(test.failures == 0 ? "All checks passed" : test.failures + " checks failed");
+        if (test.failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * <p>Counts the leaf nodes of a position at every depth.</p>
+     * @param name name of the check
+     * @param fen FEN record of the position
+     * @param expected node counts indexed by depth
+     * @param hash cache of counts or null
+     */
+    private void testNodes(String name, String fen, long[] expected, PerftHash hash) {
+        int maxDepth = expected.length - 1;
+        Perft perft = new Perft(maxDepth, hash);
+        Position position = Fen.getPosition(fen);
+
+        for (int depth = 0; depth <= maxDepth; depth++) {
+            long nodes = perft.perft(position, depth);
+
+            check(name + " D" + depth, nodes == expected[depth], nodes + ", expected " + expected[depth]);
+        }
+    }
+
+    private void testSuite(List<String> suite) {
+        int found = new Perft(SUITE_DEPTH).runSuite(suite, SUITE_DEPTH, NOWHERE);
+
+        check("suite to D" + SUITE_DEPTH, found == 0, found + " counts differ");
+    }
+
+    private void testVerify(List<String> suite) {
+        Network network = Network.getRandom(VERIFY_HIDDEN, VERIFY_SEED);
+        long found = Perft.runVerify(suite, VERIFY_DEPTH, network, NOWHERE);
+
+        check("incremental state to D" + VERIFY_DEPTH, found == 0, found + " mismatches");
+    }
+
+    private void check(String name, boolean passed, String failure) {
+        if (passed) {
+            System.out.println("  " + name + " OK");
+        } else {
+            System.out.println("  " + name + " FAIL, " + failure);
+            failures++;
+        }
+    }
+}